@@ -0,0 +1,30 @@
+package searchengine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import searchengine.model.ContentCodec;
+
+ /**
+ * Configuration of page content storage, loaded from application.yml / application.properties
+ * with the prefix {@code content-storage}.
+ * <p>
+ * Defines the codec used when page HTML is written to the database.
+ */
+
+@Configuration
+@ConfigurationProperties(prefix = "content-storage")
+@Data
+public class ContentStorageConfig {
+
+     /**
+     * Codec applied to newly written page content.
+     * Existing rows stay readable after the codec is changed.
+     */
+    private ContentCodec codec = ContentCodec.DEFLATE;
+
+     /**
+     * Deflate compression level from 1 (fastest) to 9 (smallest).
+     */
+    private int level = 6;
+}
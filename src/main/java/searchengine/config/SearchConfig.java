@@ -0,0 +1,87 @@
+package searchengine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+ /**
+ * Search configuration, loaded from application.yml / application.properties
+ * with the prefix {@code search-settings}.
+ * <p>
+ * Defines the pool that evaluates all-sites queries site by site, the bounds of the query result cache,
+ * whether word positions are indexed, the BM25 ranking parameters, the time budget of a query
+ * the bounds of result paging and the pool writing streamed results.
+ */
+
+@Configuration
+@ConfigurationProperties(prefix = "search-settings")
+@Data
+public class SearchConfig {
+
+     /**
+     * Number of threads evaluating sites in parallel.
+     */
+    private int threads = 4;
+
+     /**
+     * Number of site evaluations that may wait for a thread.
+     * When the queue is full the requesting thread evaluates the site itself.
+     */
+    private int queueCapacity = 64;
+
+     /**
+     * Maximum number of queries kept in the result cache, 0 disables the cache.
+     */
+    private int cacheSize = 1000;
+
+     /**
+     * Time in seconds a cached query result stays valid.
+     */
+    private long cacheTtlSeconds = 300;
+
+     /**
+     * Whether word positions are stored with the index, enabling phrase and NEAR queries.
+     */
+    private boolean storePositions = true;
+
+     /**
+     * BM25 term frequency saturation: higher values let repeated words count for longer.
+     */
+    private float bm25K1 = 1.2f;
+
+     /**
+     * BM25 length normalization, from 0 (none) to 1 (full).
+     */
+    private float bm25B = 0.75f;
+
+     /**
+     * Time budget of a search request in milliseconds, 0 disables it.
+     * Sites not evaluated in time are skipped and the response is marked partial.
+     */
+    private long timeoutMillis = 2000;
+
+     /**
+     * Largest number of results a single search request may ask for.
+     */
+    private int maxLimit = 100;
+
+     /**
+     * Largest offset a search request may start from.
+     */
+    private int maxOffset = 1000;
+
+     /**
+     * Number of threads writing streamed search responses.
+     */
+    private int streamThreads = 8;
+
+     /**
+     * Number of streamed responses that may wait for a thread; further ones are rejected.
+     */
+    private int streamQueueCapacity = 32;
+
+     /**
+     * Time in milliseconds a streamed response may take before it is closed.
+     */
+    private long streamTimeoutMillis = 30000;
+}
@@ -24,4 +24,10 @@ public class SitesList {
      * Each website is represented by a {@link Site} object.
      */
     private List<Site> sites;
+
+     /**
+     * Whether reindexing builds a new generation of each website next to the live one
+     * and swaps it in on success, instead of deleting the live data up front.
+     */
+    private boolean stagedReindex;
 }
@@ -0,0 +1,42 @@
+package searchengine.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+ /**
+ * Asynchronous request support for streamed responses.
+ * <p>
+ * Streamed search bodies are written on a bounded pool sized by {@link SearchConfig} instead of
+ * the default executor, which starts a new thread for every request.
+ */
+
+@Configuration
+@RequiredArgsConstructor
+public class StreamingConfig implements WebMvcConfigurer {
+
+    private final SearchConfig searchConfig;
+
+     /**
+     * Pool writing streamed response bodies; requests beyond its queue are rejected.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor streamingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(searchConfig.getStreamThreads());
+        executor.setMaxPoolSize(searchConfig.getStreamThreads());
+        executor.setQueueCapacity(searchConfig.getStreamQueueCapacity());
+        executor.setThreadNamePrefix("search-stream-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor());
+        configurer.setDefaultTimeout(searchConfig.getStreamTimeoutMillis());
+    }
+}
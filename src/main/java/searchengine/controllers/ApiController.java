@@ -1,23 +1,33 @@
 package searchengine.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import searchengine.dto.ApiResponse;
 import searchengine.dto.search.SearchResponse;
+import searchengine.dto.search.SearchHits;
 import searchengine.dto.search.SearchResult;
+import searchengine.dto.search.SearchStreamHeader;
+import searchengine.dto.search.SuggestResponse;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.logs.LogTag;
 import searchengine.services.IndexingServiceImpl;
 import searchengine.services.PageIndexingServiceImpl;
 import searchengine.services.SearchServiceImpl;
+import searchengine.services.search.SearchResultSink;
 import searchengine.services.serviceinterfaces.StatisticsService;
 import javax.validation.constraints.NotBlank;
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
 
 /**
  * API controller for managing site indexing, search, and statistics.
@@ -28,6 +38,8 @@ import java.util.List;
  *     <li>Index a specific page by its URL</li>
  *     <li>Retrieve site indexing statistics</li>
  *     <li>Perform searches across sites and queries</li>
+ *     <li>Stream search results as NDJSON</li>
+ *     <li>Suggest lemmas by prefix</li>
  * </ul>
  * <p>
  * The {@link Tag} annotation is used for grouping methods in Swagger/OpenAPI UI.
@@ -45,6 +57,12 @@ public class ApiController {
     private final IndexingServiceImpl indexingService;
     private final SearchServiceImpl searchService;
     private final PageIndexingServiceImpl pageIndexingService;
+    private final ObjectMapper objectMapper;
+
+    /**
+    * Media type of the streamed search response: one JSON object per line
+    */
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     /**
     * Starts indexing of all sites specified in the configuration file.
@@ -123,7 +141,7 @@ public class ApiController {
     /**
     * Performs a search across a specific site or the entire index.
     * <p>
-    * If the query is empty, returns {@link HttpStatus#BAD_REQUEST}.
+    * If the query is empty or the offset or limit is out of bounds, returns {@link HttpStatus#BAD_REQUEST}.
     * If no results are found, returns {@link HttpStatus#NOT_FOUND}.
     *
     * @param query  the search query (optional but must not be empty)
@@ -145,13 +163,17 @@ public class ApiController {
             return error("Search query cannot be empty", HttpStatus.BAD_REQUEST);
         }
         try {
-           List<SearchResult> results = searchService.search(query, site, offset, limit);
-            if (results.isEmpty()) {
+           SearchHits hits = searchService.search(query, site, offset, limit);
+            if (hits.getResults().isEmpty() && hits.isPartial()) {
+               return error("The search took too long, please refine the query", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            if (hits.getResults().isEmpty()) {
                return error("Nothing found for the given query", HttpStatus.NOT_FOUND);
             }
-            log.info("{} Search finished: {} results returned", TAG, results.size());
-            return ResponseEntity.ok(new SearchResponse(true, results.size(), results));
-        }catch (IllegalStateException e) {
+            log.info("{} Search finished: {} of {} results returned", TAG, hits.getResults().size(), hits.getTotal());
+            return ResponseEntity.ok(new SearchResponse(true, hits.getTotal(), hits.getResults(), hits.getCorrections(),
+                    hits.isPartial()));
+        }catch (IllegalStateException | IllegalArgumentException e) {
             log.warn("{} An error occurred during search: {}", TAG, e.getMessage());
             return error(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
@@ -160,6 +182,78 @@ public class ApiController {
         }
     }
 
+    /**
+    * Performs a search and streams the results as newline-delimited JSON.
+    * <p>
+    * The first line is a {@link SearchStreamHeader} sent as soon as the query is ranked; every following
+    * line is a {@link SearchResult}, written as soon as its snippet is built. A failure after the
+    * response has started is reported as a final {@link ApiResponse} line with {@code result: false}.
+    * If the query is empty, the offset or limit is out of bounds or the index is not ready,
+    * returns {@link HttpStatus#BAD_REQUEST} before the stream starts.
+    *
+    * @param query  the search query (optional but must not be empty)
+    * @param site   the site to search within (optional)
+    * @param offset result offset (default is 0)
+    * @param limit  number of results (default is 20)
+    * @return {@link ResponseEntity} with the streamed body or an {@link ApiResponse} with an error.
+    */
+    @Operation(summary = "Search within a site or by query, streaming results as NDJSON")
+    @GetMapping(value = "/search/stream", produces = {"application/x-ndjson", "application/json"})
+    public ResponseEntity<?> searchStream(
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String site,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("{} Endpoint /api/search/stream called with parameters: query={}, site={}, offset={}, limit={}", TAG,
+                query, site, offset, limit);
+        if (query == null || query.trim().isEmpty()) {
+            return error("Search query cannot be empty", HttpStatus.BAD_REQUEST);
+        }
+        try {
+            searchService.checkPaging(offset, limit);
+        } catch (IllegalArgumentException e) {
+            return error(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        if (!searchService.isIndexReady(site)) {
+            return error("The index is not ready yet. Please try again later.", HttpStatus.BAD_REQUEST);
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                searchService.stream(query, site, offset, limit, new NdjsonSink(out));
+            } catch (UncheckedIOException e) {
+                log.debug("{} Search stream closed by the client: {}", TAG, e.getMessage());
+            } catch (IllegalStateException e) {
+                log.warn("{} An error occurred during search: {}", TAG, e.getMessage());
+                writeLine(out, new ApiResponse(false, e.getMessage()));
+            } catch (Exception e) {
+                log.error("{} An internal error occurred during search", TAG, e);
+                writeLine(out, new ApiResponse(false, "Internal server error"));
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+    * Suggests lemmas starting with the typed prefix, most frequent first.
+    * <p>
+    * Answered from in-memory dictionaries; an empty prefix returns no suggestions.
+    *
+    * @param query the typed prefix
+    * @param site  the site to take lemmas from (optional)
+    * @param limit number of suggestions (default is 10, at most 10)
+    * @return {@link ResponseEntity} containing a {@link SuggestResponse}
+    */
+    @Operation(summary = "Suggest lemmas by prefix")
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse> suggest(
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String site,
+            @RequestParam(defaultValue = "10") int limit) {
+        log.debug("{} Endpoint /api/suggest called with parameters: query={}, site={}, limit={}", TAG,
+                query, site, limit);
+        return ResponseEntity.ok(new SuggestResponse(searchService.suggest(query, site, limit)));
+    }
+
     /**
     * Helper method for building an error response.
     *
@@ -170,4 +264,44 @@ public class ApiController {
     private ResponseEntity<ApiResponse> error(String message, HttpStatus status) {
         return ResponseEntity.status(status).body(new ApiResponse(false, message));
     }
+
+    /**
+    * Writes one object as a JSON line and flushes it to the client.
+    *
+    * @param out the response stream
+    * @param value the object to write
+    * @throws IOException if the client has gone away
+    */
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+    * Writes the streamed search as JSON lines; a write failure aborts the search.
+    */
+    @RequiredArgsConstructor
+    private class NdjsonSink implements SearchResultSink {
+
+        private final OutputStream out;
+
+        @Override
+        public void header(int total, Map<String, String> corrections, boolean partial) {
+            write(new SearchStreamHeader(total, corrections, partial));
+        }
+
+        @Override
+        public void result(SearchResult result) {
+            write(result);
+        }
+
+        private void write(Object value) {
+            try {
+                writeLine(out, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
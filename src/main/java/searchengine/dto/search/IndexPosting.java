@@ -0,0 +1,30 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Lightweight read-only view of a {@code search_indexes} row used on the search path.
+ * <p>
+ * Filled by a JPQL constructor expression, so no entities are hydrated.
+ */
+
+@Getter
+@AllArgsConstructor
+public class IndexPosting {
+
+    /**
+    * Identifier of the page
+    */
+    private final int pageId;
+
+    /**
+    * Identifier of the lemma
+    */
+    private final int lemmaId;
+
+    /**
+    * Number of occurrences of the lemma on the page
+    */
+    private final float rank;
+}
@@ -0,0 +1,38 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Lightweight read-only view of a {@code lemmas} row used on the search path.
+ */
+
+@Getter
+@AllArgsConstructor
+public class LemmaInfo {
+
+    /**
+    * Identifier of the lemma
+    */
+    private final int id;
+
+    /**
+    * Identifier of the site the lemma belongs to
+    */
+    private final int siteId;
+
+    /**
+    * Text of the lemma
+    */
+    private final String lemma;
+
+    /**
+    * Frequency of the lemma on the site
+    */
+    private final int frequency;
+
+    /**
+    * Number of pages of the site containing the lemma
+    */
+    private final int df;
+}
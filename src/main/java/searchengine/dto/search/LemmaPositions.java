@@ -0,0 +1,28 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Word positions of a lemma on a page, read from {@code search_indexes}.
+ */
+
+@Getter
+@AllArgsConstructor
+public class LemmaPositions {
+
+    /**
+    * Identifier of the page
+    */
+    private final int pageId;
+
+    /**
+    * Text of the lemma
+    */
+    private final String lemma;
+
+    /**
+    * Delta-varint encoded positions, null if the page was indexed without positions
+    */
+    private final byte[] positions;
+}
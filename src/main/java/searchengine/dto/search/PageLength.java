@@ -0,0 +1,23 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of lemma occurrences on a page, the document length used by BM25.
+ */
+
+@Getter
+@AllArgsConstructor
+public class PageLength {
+
+    /**
+    * Identifier of the page
+    */
+    private final int pageId;
+
+    /**
+    * Number of lemma occurrences on the page, 0 if unknown
+    */
+    private final int tokenCount;
+}
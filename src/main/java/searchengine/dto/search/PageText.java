@@ -0,0 +1,28 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Title and plain text of a page used to render a search result.
+ */
+
+@Getter
+@AllArgsConstructor
+public class PageText {
+
+    /**
+    * Identifier of the page
+    */
+    private final int pageId;
+
+    /**
+    * Title of the page
+    */
+    private final String title;
+
+    /**
+    * Plain text of the page
+    */
+    private final String text;
+}
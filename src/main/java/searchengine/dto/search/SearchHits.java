@@ -0,0 +1,44 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a search query.
+ * <p>
+ * Holds the requested page of results together with the total number of matching pages
+ * and the corrections made to misspelled query lemmas. Partial hits were cut short by the search deadline.
+ */
+
+@Getter
+@AllArgsConstructor
+
+public class SearchHits {
+
+    /**
+    * Result without matches
+    */
+    public static final SearchHits EMPTY = new SearchHits(0, List.of(), Map.of(), false);
+
+    /**
+    * Total number of pages matching the query
+    */
+    private final int total;
+
+    /**
+    * Results of the requested page
+    */
+    private final List<SearchResult> results;
+
+    /**
+    * Corrected lemmas keyed by the lemmas of the query
+    */
+    private final Map<String, String> corrections;
+
+    /**
+    * Whether the search deadline expired before all sites were evaluated
+    */
+    private final boolean partial;
+}
@@ -6,6 +6,7 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import searchengine.dto.ApiResponse;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Extends {@link ApiResponse} and represents the result of a search query.
@@ -15,6 +16,8 @@ import java.util.List;
  * <ul>
  *   <li>{@code count} — total number of found results</li>
  *   <li>{@code data} — a list of {@link SearchResult} objects</li>
+ *   <li>{@code corrections} — corrected query lemmas keyed by the typed ones</li>
+ *   <li>{@code partial} — whether the search deadline cut the results short</li>
  * </ul>
  */
 
@@ -34,7 +37,17 @@ public class SearchResponse extends ApiResponse {
     * List of results found
     */
     private List<SearchResult> data;
-    
+
+    /**
+    * Corrected query lemmas keyed by the typed ones
+    */
+    private Map<String, String> corrections;
+
+    /**
+    * Whether the results are incomplete because the search deadline expired
+    */
+    private boolean partial;
+
     /**
     * Constructor for a successful response.
     *
@@ -43,8 +56,24 @@ public class SearchResponse extends ApiResponse {
     * @param data   list of results
     */
     public SearchResponse(boolean result, int count, List<SearchResult> data) {
+        this(result, count, data, Map.of(), false);
+    }
+
+    /**
+    * Constructor for a successful response with corrected query lemmas.
+    *
+    * @param result      the operation result (usually true)
+    * @param count       number of results found
+    * @param data        list of results
+    * @param corrections corrected lemmas keyed by the typed ones
+    * @param partial     whether the search deadline cut the results short
+    */
+    public SearchResponse(boolean result, int count, List<SearchResult> data, Map<String, String> corrections,
+                          boolean partial) {
         super(result, null);
         this.count = count;
         this.data = data;
+        this.corrections = corrections;
+        this.partial = partial;
     }
 }
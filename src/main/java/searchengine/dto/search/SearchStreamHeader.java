@@ -0,0 +1,43 @@
+package searchengine.dto.search;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import searchengine.dto.ApiResponse;
+import java.util.Map;
+
+/**
+ * First line of a streamed search response.
+ * <p>
+ * Carries everything known once the query is ranked; the results follow as separate
+ * {@link SearchResult} lines.
+ */
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+
+public class SearchStreamHeader extends ApiResponse {
+
+    /**
+    * Number of results found
+    */
+    private int count;
+
+    /**
+    * Corrected query lemmas keyed by the typed ones
+    */
+    private Map<String, String> corrections;
+
+    /**
+    * Whether the results are incomplete because the search deadline expired
+    */
+    private boolean partial;
+
+    public SearchStreamHeader(int count, Map<String, String> corrections, boolean partial) {
+        super(true, null);
+        this.count = count;
+        this.corrections = corrections;
+        this.partial = partial;
+    }
+}
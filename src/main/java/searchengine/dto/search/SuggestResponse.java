@@ -0,0 +1,38 @@
+package searchengine.dto.search;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import searchengine.dto.ApiResponse;
+import java.util.List;
+
+/**
+ * Extends {@link ApiResponse} and carries prefix suggestions.
+ * <p>
+ * Fields:
+ * <ul>
+ *   <li>{@code data} — suggested lemmas, most frequent first</li>
+ * </ul>
+ */
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+
+public class SuggestResponse extends ApiResponse {
+
+    /**
+    * Suggested lemmas
+    */
+    private List<String> data;
+
+    /**
+    * Constructor for a successful response.
+    *
+    * @param data suggested lemmas
+    */
+    public SuggestResponse(List<String> data) {
+        super(true, null);
+        this.data = data;
+    }
+}
@@ -0,0 +1,33 @@
+package searchengine.dto.search;
+
+import lombok.Getter;
+
+/**
+ * Total length of the pages of a site whose length is known, and the number of such pages.
+ * <p>
+ * Pages indexed before lengths were stored have a length of 0 and are not counted.
+ */
+
+@Getter
+public class TokenTotals {
+
+    /**
+    * Totals of a site without measured pages
+    */
+    public static final TokenTotals EMPTY = new TokenTotals(0L, 0L);
+
+    /**
+    * Sum of the lemma occurrences of the measured pages
+    */
+    private final long tokens;
+
+    /**
+    * Number of pages with a known length
+    */
+    private final long pages;
+
+    public TokenTotals(Long tokens, Long pages) {
+        this.tokens = tokens == null ? 0 : tokens;
+        this.pages = pages == null ? 0 : pages;
+    }
+}
@@ -0,0 +1,34 @@
+package searchengine.dto.statistics;
+
+/**
+ * Projection with the row counts of one site,
+ * filled directly from an aggregate query without loading entities
+ */
+
+public interface SiteCounts {
+
+    /**
+    * Site identifier
+    */
+    Integer getSiteId();
+
+    /**
+    * Number of pages of the site
+    */
+    Long getPages();
+
+    /**
+    * Number of lemmas of the site
+    */
+    Long getLemmas();
+
+    /**
+    * Number of index rows of the site
+    */
+    Long getIndexes();
+
+    /**
+    * Total size of the stored HTML of the site in bytes
+    */
+    Long getContentBytes();
+}
@@ -22,7 +22,15 @@ public enum LogTag {
     DATA_MANAGER("DATA-MANAGER"),
     PAGE_INDEXING_SERVER("PAGE-SERVER"),
     SEARCH_SERVER("SEARCH-SERVER"),
-    SEARCH_BUILDER("SEARCH-BUILDER");
+    SEARCH_BUILDER("SEARCH-BUILDER"),
+    GENERATION_CLEANER("GEN-CLEANER"),
+    SITE_STATS("SITE-STATS"),
+    PARTITIONS("PARTITIONS"),
+    INVERTED_INDEX("INVERTED-INDEX"),
+    SEARCH_EXECUTOR("SEARCH-EXECUTOR"),
+    QUERY_CACHE("QUERY-CACHE"),
+    SUGGESTER("SUGGESTER"),
+    IN_FLIGHT("IN-FLIGHT");
 
     private final String tag;
 
@@ -0,0 +1,114 @@
+package searchengine.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codecs used to store page content in a binary column.
+ * <p>
+ * Every stored value starts with one header byte identifying the codec, so rows written
+ * with different codecs can be read regardless of the currently configured one.
+ * <ul>
+ *     <li>{@code NONE} — plain UTF-8 bytes</li>
+ *     <li>{@code DEFLATE} — the layout of MySQL {@code COMPRESS()}: a 4-byte little-endian
+ *     length of the original data followed by a zlib stream</li>
+ * </ul>
+ */
+
+public enum ContentCodec {
+    NONE((byte) 0),
+    DEFLATE((byte) 1);
+
+    /**
+    * Largest original size a stored value can declare: the capacity of a {@code MEDIUMBLOB} column
+    */
+    static final int MAX_LENGTH = 16_777_215;
+
+    private final byte header;
+
+    ContentCodec(byte header) {
+        this.header = header;
+    }
+
+    /**
+    * Encodes text with this codec.
+    *
+    * @param text  the text to encode
+    * @param level the Deflate compression level (ignored by {@code NONE})
+    * @return the header byte followed by the encoded data
+    */
+    public byte[] encode(String text, int level) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (this == NONE) {
+            return withHeader(raw);
+        }
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 16);
+            out.write(header);
+            out.write(raw.length);
+            out.write(raw.length >>> 8);
+            out.write(raw.length >>> 16);
+            out.write(raw.length >>> 24);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+    * Decodes a value written by any codec.
+    *
+    * @param data the stored value including the header byte
+    * @return the decoded text
+    * @throws IllegalArgumentException if the header is unknown, the declared length is out of range
+    *                                  or the data is corrupted
+    */
+    public static String decode(byte[] data) {
+        if (data.length == 0) return "";
+        if (data[0] == NONE.header) {
+            return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+        }
+        if (data[0] != DEFLATE.header) {
+            throw new IllegalArgumentException("Unknown content codec header: " + data[0]);
+        }
+        if (data.length < 5) return "";
+        int length = (data[1] & 0xFF) | (data[2] & 0xFF) << 8 | (data[3] & 0xFF) << 16 | (data[4] & 0xFF) << 24;
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Invalid compressed content length: " + length);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, 5, data.length - 5);
+            byte[] raw = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                read += n;
+            }
+            return new String(raw, 0, read, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted compressed content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private byte[] withHeader(byte[] raw) {
+        byte[] data = new byte[raw.length + 1];
+        data[0] = header;
+        System.arraycopy(raw, 0, data, 1, raw.length);
+        return data;
+    }
+}
@@ -6,8 +6,8 @@ import javax.persistence.*;
 /**
  * Entity representing the relationship between a page and a lemma.
  * <p>
- * The {@code search_indexes} table stores weight coefficients (rank),
- * indicating the significance of a lemma on a specific page.
+ * The {@code search_indexes} table stores the number of occurrences (rank) of a lemma
+ * on a specific page; relevance is computed from it at query time.
  */
 
 @Getter
@@ -27,6 +27,13 @@ public class IndexEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
+    /**
+    * Reference to the site of the page; the partitioning key of {@code search_indexes}
+    */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "site_id", nullable = false)
+    private SiteEntity siteEntity;
+
     /**
     * Reference to the page where the lemma occurs
     */
@@ -42,8 +49,14 @@ public class IndexEntity {
     private LemmaEntity lemmaEntity;
 
     /** 
-    * Weight (significance) of the lemma on this page
+    * Number of occurrences of the lemma on this page (raw term frequency)
     */
     @Column(name = "rank_value", nullable = false)
     private float rank;
+
+    /**
+    * Word positions of the lemma on the page as delta-encoded varints; null if not stored
+    */
+    @Column(name = "positions", columnDefinition = "BLOB")
+    private byte[] positions;
 }
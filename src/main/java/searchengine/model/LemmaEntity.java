@@ -45,6 +45,12 @@ public class LemmaEntity {
     @Column(name = "frequency", nullable = false)
     private int frequency;
 
+    /** 
+    * Number of pages of the site containing the lemma (document frequency)
+    */
+    @Column(name = "df", nullable = false)
+    private int df;
+
     /** 
     * List of indexes where this lemma is used
     */
@@ -0,0 +1,35 @@
+package searchengine.model;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import searchengine.config.ContentStorageConfig;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * JPA converter storing page HTML in a binary column using the configured {@link ContentCodec}.
+ * <p>
+ * Hibernate obtains the converter from the Spring context, so the codec follows
+ * {@link ContentStorageConfig}. Reading always honours the codec recorded in each value.
+ */
+
+@Component
+@Converter
+@RequiredArgsConstructor
+public class PageContentConverter implements AttributeConverter<String, byte[]> {
+
+    /**
+    * Content storage settings (codec and compression level)
+    */
+    private final ContentStorageConfig config;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        return content == null ? null : config.getCodec().encode(content, config.getLevel());
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        return data == null ? null : ContentCodec.decode(data);
+    }
+}
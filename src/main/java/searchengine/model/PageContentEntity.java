@@ -0,0 +1,87 @@
+package searchengine.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+import javax.persistence.*;
+
+/**
+ * Entity holding the HTML content of a page.
+ * <p>Table: {@code page_contents}</p>
+ * <p>
+ * Kept apart from {@link PageEntity} so that page metadata rows stay small and the
+ * content is read only for the pages that actually need it (snippets, reindexing).
+ * The title and plain text are extracted once when the page is saved, so search
+ * results can be rendered without parsing HTML.
+ * <p>
+ * The ID is assigned from the page, so the entity reports itself as new until it has been
+ * stored or loaded; saving a new content then inserts it without a preceding SELECT.
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "page_contents")
+public class PageContentEntity implements Persistable<Integer> {
+
+    /**
+    * Identifier of the page the content belongs to
+    */
+    @Id
+    @Column(name = "page_id", nullable = false)
+    private int pageId;
+
+    /**
+    * HTML content of the page, stored compressed by {@link PageContentConverter}
+    */
+    @Convert(converter = PageContentConverter.class)
+    @Column(name = "content_data", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private String content;
+
+    /**
+    * Title of the page
+    */
+    @Column(name = "title", length = 512)
+    private String title;
+
+    /**
+    * Plain text of the page, stored compressed by {@link PageContentConverter}
+    */
+    @Convert(converter = PageContentConverter.class)
+    @Column(name = "text_data", columnDefinition = "MEDIUMBLOB")
+    private String text;
+
+    /**
+    * Whether the content has not been stored yet
+    */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    public PageContentEntity(int pageId, String content, String title, String text) {
+        this.pageId = pageId;
+        this.content = content;
+        this.title = title;
+        this.text = text;
+    }
+
+    @Override
+    public Integer getId() {
+        return pageId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        newEntity = false;
+    }
+}
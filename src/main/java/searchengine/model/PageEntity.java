@@ -9,6 +9,7 @@ import java.util.List;
 /**
  * Entity representing a website page.
  * <p>Table: {@code pages}</p>
+ * <p>The HTML content lives in {@link PageContentEntity} and is loaded separately.</p>
  */
 
 @Setter
@@ -16,7 +17,8 @@ import java.util.List;
 @NoArgsConstructor
 @Entity
 @Table(name = "pages", indexes = {
-        @Index(name = "idx_path", columnList = "path")
+        @Index(name = "idx_path", columnList = "path"),
+        @Index(name = "ux_pages_site_path_hash", columnList = "site_id, path_hash", unique = true)
 })
 
 public class PageEntity {
@@ -42,6 +44,12 @@ public class PageEntity {
     @Column(name = "path", nullable = false, columnDefinition = "TEXT")
     private String path;
 
+    /** 
+    * 64-bit hash of the path, unique within the site (see {@code PathHasher})
+    */
+    @Column(name = "path_hash", nullable = false)
+    private long pathHash;
+
     /** 
     * HTTP response code of the page 
     */
@@ -49,10 +57,10 @@ public class PageEntity {
     private int code;
 
     /** 
-    * HTML content of the page
+    * Number of lemma occurrences on the page (document length for BM25), 0 if unknown
     */
-    @Column(name = "content", nullable = false, columnDefinition = "MEDIUMTEXT")
-    private String content;
+    @Column(name = "token_count", nullable = false)
+    private int tokenCount;
 
     /** 
     * Indexes (lemmas and their weights) associated with this page 
@@ -60,6 +60,13 @@ public class SiteEntity {
     @Column(name = "name", nullable = false, columnDefinition = "VARCHAR(255)")
     private String name;
 
+    /**
+    * Whether this record is the live generation of the site served to searches.
+    * <p>A staging generation built during reindexing stays inactive until it is swapped in.
+    */
+    @Column(name = "active", nullable = false)
+    private boolean active = true;
+
     /**
     * list pages of site
     */
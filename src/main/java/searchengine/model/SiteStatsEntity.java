@@ -0,0 +1,62 @@
+package searchengine.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding the persisted indexing counters of a site.
+ * <p>Table: {@code site_stats}</p>
+ * <p>
+ * The counters are maintained in memory while indexing runs and written here periodically,
+ * so statistics do not need to count rows of the large tables.
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "site_stats")
+public class SiteStatsEntity {
+
+    /**
+    * Identifier of the site the counters belong to
+    */
+    @Id
+    @Column(name = "site_id", nullable = false)
+    private int siteId;
+
+    /**
+    * Number of pages of the site
+    */
+    @Column(name = "pages", nullable = false)
+    private long pages;
+
+    /**
+    * Number of lemmas of the site
+    */
+    @Column(name = "lemmas", nullable = false)
+    private long lemmas;
+
+    /**
+    * Number of index rows of the site
+    */
+    @Column(name = "indexes", nullable = false)
+    private long indexes;
+
+    /**
+    * Total size of the indexed HTML in bytes
+    */
+    @Column(name = "content_bytes", nullable = false)
+    private long contentBytes;
+
+    /**
+    * Time of the last counter change
+    */
+    @Column(name = "updated_at", nullable = false, columnDefinition = "DATETIME")
+    private LocalDateTime updatedAt;
+}
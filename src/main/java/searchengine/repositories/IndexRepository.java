@@ -1,11 +1,16 @@
 package searchengine.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.search.IndexPosting;
+import searchengine.dto.search.LemmaPositions;
 import searchengine.model.IndexEntity;
 import searchengine.model.LemmaEntity;
 import searchengine.model.SiteEntity;
+import java.util.Collection;
 import java.util.List;
 
  /**
@@ -24,8 +29,8 @@ public interface IndexRepository extends JpaRepository<IndexEntity, Integer> {
    */
     @Query("SELECT COUNT(DISTINCT i.pageEntity.id) " +
             "FROM IndexEntity i " +
-            "WHERE i.lemmaEntity = :lemma " +
-            "AND i.pageEntity.siteEntity = :site")
+            "WHERE i.siteEntity = :site " +
+            "AND i.lemmaEntity = :lemma")
     int countPagesContainingLemma(@Param("lemma") LemmaEntity lemma,
                                   @Param("site") SiteEntity site);
 
@@ -37,9 +42,83 @@ public interface IndexRepository extends JpaRepository<IndexEntity, Integer> {
    * @return a list of {@link IndexEntity} for the given lemma on the website
    */
     @Query("SELECT i FROM IndexEntity i " +
-            "WHERE i.lemmaEntity = :lemma " +
-            "AND i.pageEntity.siteEntity = :site")
+            "WHERE i.siteEntity = :site " +
+            "AND i.lemmaEntity = :lemma")
     List<IndexEntity> findIndexesByLemmaAndSite(@Param("lemma") LemmaEntity lemma,
                                                 @Param("site") SiteEntity site);
 
+   /**
+   * Retrieves the postings of a website's lemmas within a range of lemma IDs,
+   * ordered by lemma ID and page ID.
+   *
+   * @param siteId the ID of the website
+   * @param fromId the smallest lemma ID (inclusive)
+   * @param toId the largest lemma ID (inclusive)
+   * @return a list of postings
+   */
+    @Query("SELECT new searchengine.dto.search.IndexPosting(i.pageEntity.id, i.lemmaEntity.id, i.rank) " +
+            "FROM IndexEntity i " +
+            "WHERE i.siteEntity.id = :siteId " +
+            "AND i.lemmaEntity.id BETWEEN :fromId AND :toId " +
+            "ORDER BY i.lemmaEntity.id, i.pageEntity.id")
+    List<IndexPosting> findPostingsInLemmaRange(@Param("siteId") int siteId,
+                                                @Param("fromId") int fromId,
+                                                @Param("toId") int toId);
+
+   /**
+   * Retrieves the word positions of lemmas on pages of a website.
+   *
+   * @param siteId the ID of the website
+   * @param pageIds the IDs of the pages
+   * @param lemmas the lemma texts
+   * @return positions of every given lemma found on the given pages
+   */
+    @Query("SELECT new searchengine.dto.search.LemmaPositions(i.pageEntity.id, i.lemmaEntity.lemma, i.positions) " +
+            "FROM IndexEntity i " +
+            "WHERE i.siteEntity.id = :siteId " +
+            "AND i.pageEntity.id IN :pageIds " +
+            "AND i.lemmaEntity.lemma IN :lemmas")
+    List<LemmaPositions> findPositions(@Param("siteId") int siteId,
+                                       @Param("pageIds") Collection<Integer> pageIds,
+                                       @Param("lemmas") Collection<String> lemmas);
+
+   /**
+   * Retrieves the IDs of the lemmas occurring on a page of a website.
+   *
+   * @param siteId the ID of the website
+   * @param pageId the ID of the page
+   * @return a list of lemma IDs
+   */
+    @Query("SELECT i.lemmaEntity.id FROM IndexEntity i " +
+            "WHERE i.siteEntity.id = :siteId " +
+            "AND i.pageEntity.id = :pageId")
+    List<Integer> findLemmaIdsByPage(@Param("siteId") int siteId, @Param("pageId") int pageId);
+
+   /**
+   * Retrieves the (page, lemma, rank) tuples of the given lemmas on a website.
+   * <p>Returns lightweight views without hydrating index, page or lemma entities.</p>
+   *
+   * @param siteId the ID of the website
+   * @param lemmaIds the IDs of the lemmas
+   * @return a list of postings
+   */
+    @Query("SELECT new searchengine.dto.search.IndexPosting(i.pageEntity.id, i.lemmaEntity.id, i.rank) " +
+            "FROM IndexEntity i " +
+            "WHERE i.siteEntity.id = :siteId " +
+            "AND i.lemmaEntity.id IN :lemmaIds")
+    List<IndexPosting> findPostings(@Param("siteId") int siteId,
+                                    @Param("lemmaIds") Collection<Integer> lemmaIds);
+
+   /**
+   * Deletes up to {@code limit} indexes of a website.
+   * <p>Runs as a bulk statement in its own transaction without loading entities.</p>
+   *
+   * @param siteId the ID of the website
+   * @param limit the maximum number of rows to delete
+   * @return the number of deleted rows
+   */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM search_indexes WHERE site_id = :siteId LIMIT :limit", nativeQuery = true)
+    int deleteChunkBySite(@Param("siteId") int siteId, @Param("limit") int limit);
 }
@@ -1,10 +1,14 @@
 package searchengine.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.search.LemmaInfo;
 import searchengine.model.LemmaEntity;
 import searchengine.model.SiteEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -54,21 +58,39 @@ public interface LemmaRepository extends JpaRepository<LemmaEntity, Integer> {
     List<LemmaEntity> findAllBySite(@Param("site") SiteEntity site);
 
     /**
-    * Retrieves all lemmas from a list of texts.
+    * Retrieves lemmas from a list of texts on a website as lightweight views.
     *
     * @param names the list of lemma texts
-    * @return a list of lemmas
+    * @param siteId the ID of the website
+    * @return a list of lemma views
     */
-    List<LemmaEntity> findByLemmaIn(List<String> names);
+    @Query("SELECT new searchengine.dto.search.LemmaInfo(l.id, l.siteEntity.id, l.lemma, l.frequency, l.df) " +
+            "FROM LemmaEntity l WHERE l.lemma IN :names AND l.siteEntity.id = :siteId")
+    List<LemmaInfo> findLemmaInfos(@Param("names") Collection<String> names, @Param("siteId") int siteId);
 
     /**
-    * Retrieves lemmas from a list of texts and a website URL.
+    * Retrieves lemmas of a website within a range of IDs as lightweight views.
     *
-    * @param names the list of lemma texts
-    * @param siteUrl the URL of the website
-    * @return a list of lemmas
+    * @param siteId the ID of the website
+    * @param fromId the smallest lemma ID (inclusive)
+    * @param toId the largest lemma ID (inclusive)
+    * @return a list of lemma views
     */
-    List<LemmaEntity> findByLemmaInAndSiteEntity_Url(List<String> names, String siteUrl);
+    @Query("SELECT new searchengine.dto.search.LemmaInfo(l.id, l.siteEntity.id, l.lemma, l.frequency, l.df) " +
+            "FROM LemmaEntity l WHERE l.siteEntity.id = :siteId AND l.id BETWEEN :fromId AND :toId")
+    List<LemmaInfo> findLemmaInfosInRange(@Param("siteId") int siteId,
+                                          @Param("fromId") int fromId,
+                                          @Param("toId") int toId);
+
+    /**
+    * Retrieves lemmas by their IDs as lightweight views.
+    *
+    * @param ids the IDs of the lemmas
+    * @return a list of lemma views
+    */
+    @Query("SELECT new searchengine.dto.search.LemmaInfo(l.id, l.siteEntity.id, l.lemma, l.frequency, l.df) " +
+            "FROM LemmaEntity l WHERE l.id IN :ids")
+    List<LemmaInfo> findLemmaInfosByIds(@Param("ids") Collection<Integer> ids);
 
     /**
     * Counts the number of lemmas for a website by its ID.
@@ -78,5 +100,34 @@ public interface LemmaRepository extends JpaRepository<LemmaEntity, Integer> {
     */
     @Query("SELECT COUNT(l) FROM LemmaEntity l WHERE l.siteEntity.id = :siteId")
     int countLemmasBySite(@Param("siteId") Integer siteId);
-}
 
+    /**
+    * Returns the smallest lemma ID of a website.
+    *
+    * @param siteId the ID of the website
+    * @return the smallest ID, or null if the website has no lemmas
+    */
+    @Query("SELECT MIN(l.id) FROM LemmaEntity l WHERE l.siteEntity.id = :siteId")
+    Integer findMinIdBySite(@Param("siteId") Integer siteId);
+
+    /**
+    * Returns the largest lemma ID of a website.
+    *
+    * @param siteId the ID of the website
+    * @return the largest ID, or null if the website has no lemmas
+    */
+    @Query("SELECT MAX(l.id) FROM LemmaEntity l WHERE l.siteEntity.id = :siteId")
+    Integer findMaxIdBySite(@Param("siteId") Integer siteId);
+
+    /**
+    * Deletes up to {@code limit} lemmas of a website in its own transaction.
+    *
+    * @param siteId the ID of the website
+    * @param limit the maximum number of rows to delete
+    * @return the number of deleted rows
+    */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM lemmas WHERE site_id = :siteId LIMIT :limit", nativeQuery = true)
+    int deleteChunkBySite(@Param("siteId") int siteId, @Param("limit") int limit);
+}
@@ -0,0 +1,44 @@
+package searchengine.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.search.PageText;
+import searchengine.model.PageContentEntity;
+import java.util.Collection;
+import java.util.List;
+
+ /**
+ * Repository for working with the {@link PageContentEntity} entity.
+ * <p>Contains methods for reading and bulk deleting page content.</p>
+ */
+
+public interface PageContentRepository extends JpaRepository<PageContentEntity, Integer> {
+
+    /**
+    * Retrieves the title and plain text of pages without reading their HTML.
+    *
+    * @param pageIds the IDs of the pages
+    * @return a list of page texts
+    */
+    @Query("SELECT new searchengine.dto.search.PageText(c.pageId, c.title, c.text) " +
+            "FROM PageContentEntity c WHERE c.pageId IN :pageIds")
+    List<PageText> findTexts(@Param("pageIds") Collection<Integer> pageIds);
+
+    /**
+    * Deletes up to {@code limit} content rows belonging to the pages of a website.
+    *
+    * @param siteId the ID of the website
+    * @param limit the maximum number of rows to delete
+    * @return the number of deleted rows
+    */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM page_contents " +
+            "WHERE page_id IN (SELECT p.id FROM pages p WHERE p.site_id = :siteId) " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    int deleteChunkBySite(@Param("siteId") int siteId, @Param("limit") int limit);
+}
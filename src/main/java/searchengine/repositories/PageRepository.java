@@ -1,10 +1,15 @@
 package searchengine.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.search.PageLength;
+import searchengine.dto.search.TokenTotals;
 import searchengine.model.PageEntity;
 import searchengine.model.SiteEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,12 +21,24 @@ import java.util.Optional;
 public interface PageRepository extends JpaRepository<PageEntity, Integer> {
 
     /**
-    * Finds a page by its path.
+    * Finds a page of a website by the hash of its path.
+    * <p>Served by the unique {@code (site_id, path_hash)} index.</p>
     *
-    * @param path the path of the page
+    * @param siteId the ID of the website
+    * @param pathHash the hash of the page path
     * @return an Optional containing the found page
     */
-    Optional<PageEntity> findByPath(String path);
+    @Query("SELECT p FROM PageEntity p WHERE p.siteEntity.id = :siteId AND p.pathHash = :pathHash")
+    Optional<PageEntity> findBySiteIdAndPathHash(@Param("siteId") int siteId, @Param("pathHash") long pathHash);
+
+    /**
+    * Retrieves pages by their IDs together with their websites in one query.
+    *
+    * @param ids the IDs of the pages
+    * @return a list of pages with initialized websites
+    */
+    @Query("SELECT p FROM PageEntity p JOIN FETCH p.siteEntity WHERE p.id IN :ids")
+    List<PageEntity> findAllWithSiteByIdIn(@Param("ids") Collection<Integer> ids);
 
     /**
     * Retrieves all pages for a website by its ID.
@@ -48,4 +65,56 @@ public interface PageRepository extends JpaRepository<PageEntity, Integer> {
     */
     @Query("SELECT COUNT(p) FROM PageEntity p WHERE p.siteEntity.id = :siteId")
     int countBySiteId(@Param("siteId") int siteId);
+
+    /**
+    * Retrieves the document lengths of all pages of a website.
+    *
+    * @param siteId the ID of the website
+    * @return page lengths ordered by page ID
+    */
+    @Query("SELECT new searchengine.dto.search.PageLength(p.id, p.tokenCount) " +
+            "FROM PageEntity p WHERE p.siteEntity.id = :siteId ORDER BY p.id")
+    List<PageLength> findPageLengthsBySite(@Param("siteId") int siteId);
+
+    /**
+    * Retrieves the document lengths of pages by their IDs.
+    *
+    * @param ids the IDs of the pages
+    * @return page lengths of the existing pages
+    */
+    @Query("SELECT new searchengine.dto.search.PageLength(p.id, p.tokenCount) FROM PageEntity p WHERE p.id IN :ids")
+    List<PageLength> findPageLengths(@Param("ids") Collection<Integer> ids);
+
+    /**
+    * Sums the document lengths of the pages of a website whose length is known and counts those pages.
+    *
+    * @param siteId the ID of the website
+    * @return the total number of lemma occurrences and the number of measured pages
+    */
+    @Query("SELECT new searchengine.dto.search.TokenTotals(COALESCE(SUM(p.tokenCount), 0), COUNT(p)) " +
+            "FROM PageEntity p WHERE p.siteEntity.id = :siteId AND p.tokenCount > 0")
+    TokenTotals findTokenTotalsBySite(@Param("siteId") int siteId);
+
+    /**
+    * Sets the document length of a page.
+    *
+    * @param id the ID of the page
+    * @param tokenCount number of lemma occurrences on the page
+    * @return the number of updated rows
+    */
+    @Modifying
+    @Query("UPDATE PageEntity p SET p.tokenCount = :tokenCount WHERE p.id = :id")
+    int updateTokenCount(@Param("id") int id, @Param("tokenCount") int tokenCount);
+
+    /**
+    * Deletes up to {@code limit} pages of a website in its own transaction.
+    *
+    * @param siteId the ID of the website
+    * @param limit the maximum number of rows to delete
+    * @return the number of deleted rows
+    */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM pages WHERE site_id = :siteId LIMIT :limit", nativeQuery = true)
+    int deleteChunkBySite(@Param("siteId") int siteId, @Param("limit") int limit);
 }
@@ -1,9 +1,14 @@
 package searchengine.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.statistics.SiteCounts;
 import searchengine.model.SiteEntity;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -15,12 +20,19 @@ import java.util.Optional;
 public interface SiteRepository extends JpaRepository<SiteEntity, Integer> {
 
     /**
-    * Finds a website by its URL.
+    * Finds the active generation of a website by its URL.
     *
     * @param url the URL of the website
     * @return an Optional containing the found website
     */
-    Optional<SiteEntity> findByUrl(String url);
+    Optional<SiteEntity> findByUrlAndActiveTrue(String url);
+
+    /**
+    * Retrieves the active generation of every website.
+    *
+    * @return a list of active websites
+    */
+    List<SiteEntity> findAllByActiveTrue();
 
     /**
     * Deletes a website by its URL.
@@ -30,10 +42,74 @@ public interface SiteRepository extends JpaRepository<SiteEntity, Integer> {
     void deleteByUrl(String url);
 
     /**
-    * Checks whether any websites exist in the database.
+    * Checks whether any active websites exist in the database.
     *
     * @return true if at least one website exists
     */
-    @Query("SELECT CASE WHEN COUNT(s) > 0 THEN true ELSE false END FROM SiteEntity s")
+    @Query("SELECT CASE WHEN COUNT(s) > 0 THEN true ELSE false END FROM SiteEntity s WHERE s.active = true")
     boolean hasAnySites();
+
+    /**
+    * Retrieves the IDs of all website records with the given URL.
+    *
+    * @param url the URL of the website
+    * @return a list of website IDs
+    */
+    @Query("SELECT s.id FROM SiteEntity s WHERE s.url = :url")
+    List<Integer> findIdsByUrl(@Param("url") String url);
+
+    /**
+    * Deletes a website row by its ID without cascading through its collections.
+    *
+    * @param id the ID of the website
+    * @return the number of deleted rows
+    */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM sites WHERE id = :id", nativeQuery = true)
+    int deleteRowById(@Param("id") int id);
+
+    /**
+    * Retrieves the IDs of the inactive generations of a website.
+    *
+    * @param url the URL of the website
+    * @return a list of website IDs
+    */
+    @Query("SELECT s.id FROM SiteEntity s WHERE s.url = :url AND s.active = false")
+    List<Integer> findInactiveIdsByUrl(@Param("url") String url);
+
+    /**
+    * Marks every generation of a website except the given one as inactive.
+    *
+    * @param url the URL of the website
+    * @param keepId the ID of the generation that stays active
+    * @return the number of updated rows
+    */
+    @Modifying
+    @Query("UPDATE SiteEntity s SET s.active = false WHERE s.url = :url AND s.id <> :keepId")
+    int deactivateOtherGenerations(@Param("url") String url, @Param("keepId") int keepId);
+
+    /**
+    * Counts pages, lemmas, indexes and stored HTML bytes of every website with grouped queries.
+    * <p>Used to seed the in-memory statistics counters; the HTML size is read from the
+    * codec header without decompressing the content.</p>
+    *
+    * @return a list of per-site counts
+    */
+    @Query(value = "SELECT s.id AS siteId, " +
+            "COALESCE(p.cnt, 0) AS pages, " +
+            "COALESCE(l.cnt, 0) AS lemmas, " +
+            "COALESCE(i.cnt, 0) AS indexes, " +
+            "COALESCE(p.bytes, 0) AS contentBytes " +
+            "FROM sites s " +
+            "LEFT JOIN (SELECT pg.site_id, COUNT(*) AS cnt, " +
+            "           SUM(CASE WHEN ASCII(c.content_data) = 1 " +
+            "                    THEN UNCOMPRESSED_LENGTH(SUBSTRING(c.content_data, 2)) " +
+            "                    ELSE LENGTH(c.content_data) - 1 END) AS bytes " +
+            "           FROM pages pg LEFT JOIN page_contents c ON c.page_id = pg.id " +
+            "           GROUP BY pg.site_id) p ON p.site_id = s.id " +
+            "LEFT JOIN (SELECT site_id, COUNT(*) AS cnt FROM lemmas GROUP BY site_id) l ON l.site_id = s.id " +
+            "LEFT JOIN (SELECT site_id, COUNT(*) AS cnt FROM search_indexes GROUP BY site_id) i ON i.site_id = s.id",
+            nativeQuery = true)
+    List<SiteCounts> countSiteData();
 }
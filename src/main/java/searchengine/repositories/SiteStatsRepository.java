@@ -0,0 +1,11 @@
+package searchengine.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import searchengine.model.SiteStatsEntity;
+
+ /**
+ * Repository for working with the {@link SiteStatsEntity} entity.
+ */
+
+public interface SiteStatsRepository extends JpaRepository<SiteStatsEntity, Integer> {
+}
@@ -2,18 +2,35 @@ package searchengine.services;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.search.IndexPosting;
+import searchengine.dto.search.LemmaInfo;
+import searchengine.dto.search.LemmaPositions;
+import searchengine.dto.search.PageLength;
+import searchengine.dto.search.PageText;
+import searchengine.dto.search.TokenTotals;
+import searchengine.dto.statistics.SiteCounts;
 import searchengine.logs.LogTag;
 import searchengine.model.*;
 import searchengine.repositories.IndexRepository;
 import searchengine.repositories.LemmaRepository;
+import searchengine.repositories.PageContentRepository;
 import searchengine.repositories.PageRepository;
 import searchengine.repositories.SiteRepository;
+import searchengine.services.util.PartitionManager;
+import searchengine.services.util.PathHasher;
+import searchengine.services.util.SiteStatsRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Manager for handling entity data: Sites, Pages, Lemmas, and Indexes.
@@ -28,10 +45,23 @@ import java.util.function.Supplier;
 public class DataManager {
 
     private static final LogTag TAG = LogTag.DATA_MANAGER;
+
+    /**
+    * Maximum number of rows removed by a single bulk DELETE during a site purge
+    */
+    private static final int PURGE_CHUNK_SIZE = 10_000;
+
+    /**
+    * Maximum number of page IDs bound to a single IN query
+    */
+    private static final int PAGE_ID_CHUNK_SIZE = 1000;
     private final IndexRepository indexRepository;
     private final LemmaRepository lemmaRepository;
     private final PageRepository pageRepository;
+    private final PageContentRepository pageContentRepository;
     private final SiteRepository siteRepository;
+    private final SiteStatsRegistry siteStatsRegistry;
+    private final PartitionManager partitionManager;
     
     /**
     * Unified error handler 
@@ -48,13 +78,13 @@ public class DataManager {
         // ==== SITE METHODS ====
 
     /**
-    * Retrieve all sites.
+    * Retrieve the active generation of all sites.
     *
-    * @return list of all SiteEntity objects
+    * @return list of all active SiteEntity objects
     */
     @Transactional(readOnly = true)
     public List<SiteEntity> getAllSites() {
-        return wrapOperation(siteRepository::findAll, "Error retrieving all sites", 
+        return wrapOperation(siteRepository::findAllByActiveTrue, "Error retrieving all sites",
                              Collections.emptyList());
     }
 
@@ -70,17 +100,30 @@ public class DataManager {
     }
 
     /**
-    * Find a site by its URL.
+    * Find the active generation of a site by its URL.
     *
     * @param url the site's URL
     * @return an Optional containing the SiteEntity
     */
     @Transactional(readOnly = true)
     public Optional<SiteEntity> findSite(String url) {
-        return wrapOperation(() -> siteRepository.findByUrl(url), 
+        return wrapOperation(() -> siteRepository.findByUrlAndActiveTrue(url), 
                              "Error finding site with url = " + url, Optional.empty());
     }
 
+    /**
+    * Count pages, lemmas, indexes and HTML bytes of every site with grouped aggregate queries.
+    * <p>Used to seed {@link SiteStatsRegistry} on every start; later statistics are served from memory.
+    *
+    * @return map of site ID to its counts, or null if the counts could not be read
+    */
+    @Transactional(readOnly = true)
+    public Map<Integer, SiteCounts> getSiteCounts() {
+        return wrapOperation(() -> siteRepository.countSiteData().stream()
+                        .collect(Collectors.toMap(SiteCounts::getSiteId, counts -> counts)),
+                "Error counting data of the sites", null);
+    }
+
     /**
     * Find a site by its ID.
     *
@@ -95,14 +138,19 @@ public class DataManager {
 
     /**
     * Save a site.
+    * <p>A newly created site also gets its partitions in the lemma and index tables.
     *
     * @param site the SiteEntity object
     * @return true if the site was successfully saved
     */
-    @Transactional
     public boolean saveSite(SiteEntity site) {
         return wrapOperation(() -> {
+            boolean created = site.getId() == 0;
             siteRepository.save(site);
+            if (created) {
+                partitionManager.addSitePartitions(site.getId());
+            }
+            siteStatsRegistry.siteSaved(site);
             log.debug("{} Site {} saved", TAG, site);
             return true;
         }, "Error saving site " + site, false);
@@ -118,6 +166,7 @@ public class DataManager {
     public boolean deleteSite(SiteEntity site) {
         return wrapOperation(() -> {
             siteRepository.delete(site);
+            siteStatsRegistry.siteRemoved(site.getId());
             log.debug("{} Site with id = {} deleted", TAG, site.getId());
             return true;
         }, "Error deleting site with id =" + site.getId(), false);
@@ -148,10 +197,110 @@ public class DataManager {
     public boolean deleteSiteById(int id) {
         return wrapOperation(() -> {
             siteRepository.deleteById(id);
+            siteStatsRegistry.siteRemoved(id);
             log.debug("{} Site with id = {} deleted", TAG, id);
             return true;
         }, "Error deleting site with id = " + id, false);
     }
+    /**
+    * Purge all data of the sites with the given URL using bulk SQL deletes.
+    * <p>Rows are removed in dependency order (indexes, lemmas, pages, site) in chunks
+    * of {@link #PURGE_CHUNK_SIZE}, each chunk in its own transaction, without loading entities.
+    *
+    * @param url the site's URL
+    * @return true if all matching sites were purged
+    */
+    public boolean purgeSite(String url) {
+        List<Integer> ids = wrapOperation(() -> siteRepository.findIdsByUrl(url),
+                "Error finding sites with url = " + url, null);
+        if (ids == null) return false;
+        boolean purged = true;
+        for (int id : ids) {
+            purged &= purgeSite(id);
+        }
+        return purged;
+    }
+
+    /**
+    * Purge all data of a site by its ID using bulk SQL deletes.
+    * <p>When the lemma and index tables are partitioned and no crawl is running, the site's partitions
+    * are dropped instead of deleting their rows; during a crawl the rows are deleted and the
+    * {@link PartitionManager} drops the empty partitions after it.
+    *
+    * @param siteId the site's identifier
+    * @return true if the site was purged
+    */
+    public boolean purgeSite(int siteId) {
+        return wrapOperation(() -> {
+            int indexes = 0;
+            int lemmas = 0;
+            if (!partitionManager.dropSitePartitions(siteId)) {
+                indexes = deleteInChunks(limit -> indexRepository.deleteChunkBySite(siteId, limit));
+                lemmas = deleteInChunks(limit -> lemmaRepository.deleteChunkBySite(siteId, limit));
+            }
+            deleteInChunks(limit -> pageContentRepository.deleteChunkBySite(siteId, limit));
+            int pages = deleteInChunks(limit -> pageRepository.deleteChunkBySite(siteId, limit));
+            siteRepository.deleteRowById(siteId);
+            siteStatsRegistry.siteRemoved(siteId);
+            log.info("{} Site with id = {} purged: {} indexes, {} lemmas, {} pages",
+                    TAG, siteId, indexes, lemmas, pages);
+            return true;
+        }, "Error purging site with id = " + siteId, false);
+    }
+
+    /**
+    * Purge the inactive generations of a site left over from an interrupted reindexing.
+    *
+    * @param url the site's URL
+    * @return true if all inactive generations were purged
+    */
+    public boolean purgeInactiveGenerations(String url) {
+        List<Integer> ids = wrapOperation(() -> siteRepository.findInactiveIdsByUrl(url),
+                "Error finding inactive generations of the site " + url, null);
+        if (ids == null) return false;
+        boolean purged = true;
+        for (int id : ids) {
+            purged &= purgeSite(id);
+        }
+        return purged;
+    }
+
+    /**
+    * Make a staging generation the live generation of its site.
+    * <p>The previous generation is deactivated in the same transaction, so searches switch
+    * from the old data to the new data at once.
+    *
+    * @param site the staging SiteEntity object
+    * @return true if the generation was activated
+    */
+    @Transactional
+    public boolean activateGeneration(SiteEntity site) {
+        return wrapOperation(() -> {
+            siteRepository.deactivateOtherGenerations(site.getUrl(), site.getId());
+            site.setActive(true);
+            siteRepository.save(site);
+            siteStatsRegistry.generationActivated(site);
+            log.info("{} Generation with id = {} is now live for the site {}", TAG, site.getId(), site.getUrl());
+            return true;
+        }, "Error activating generation with id = " + site.getId(), false);
+    }
+
+    /**
+    * Repeats a chunked delete until a chunk removes fewer rows than the limit.
+    *
+    * @param chunk the delete statement receiving the chunk size and returning the deleted row count
+    * @return the total number of deleted rows
+    */
+    private int deleteInChunks(IntUnaryOperator chunk) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = chunk.applyAsInt(PURGE_CHUNK_SIZE);
+            total += deleted;
+        } while (deleted == PURGE_CHUNK_SIZE);
+        return total;
+    }
+
         // ==== PAGE METHODS ====
 
     /**
@@ -167,15 +316,17 @@ public class DataManager {
     }
 
     /**
-    * Find a page by path.
+    * Find a page of a site by path using the path hash index.
     *
+    * @param site SiteEntity object
     * @param path page path
     * @return Optional PageEntity
     */
     @Transactional(readOnly = true)
-    public Optional<PageEntity> findPathPage(String path) {
-        return wrapOperation(() -> pageRepository.findByPath(path), 
-                             "Error finding page by path" + path, Optional.empty());
+    public Optional<PageEntity> findPage(SiteEntity site, String path) {
+        return wrapOperation(() -> pageRepository.findBySiteIdAndPathHash(site.getId(), PathHasher.hash(path))
+                        .filter(page -> path.equals(page.getPath())),
+                "Error finding page by path " + path + " on the site " + site.getId(), Optional.empty());
     }
 
     /**
@@ -191,15 +342,131 @@ public class DataManager {
     }
 
     /**
-    * Count the pages of a site.
+    * Get pages by their IDs together with their sites.
     *
-    * @param site SiteEntity object
+    * @param ids page identifiers
+    * @return map of page ID to PageEntity
+    */
+    @Transactional(readOnly = true)
+    public Map<Integer, PageEntity> findPagesWithSites(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return wrapOperation(() -> pageRepository.findAllWithSiteByIdIn(ids).stream()
+                        .collect(Collectors.toMap(PageEntity::getId, page -> page)),
+                "Error finding pages " + ids, Collections.emptyMap());
+    }
+
+    /**
+    * Count the pages of a site by its ID.
+    *
+    * @param siteId site identifier
     * @return number of pages
     */
     @Transactional(readOnly = true)
-    public int getCountPagesBySite(SiteEntity site) {
-        return wrapOperation(() -> pageRepository.countBySiteId(site.getId()),
-                "Error counting pages of the site " + site.getId(), 0);
+    public int getCountPagesBySite(int siteId) {
+        return wrapOperation(() -> pageRepository.countBySiteId(siteId),
+                "Error counting pages of the site " + siteId, 0);
+    }
+
+    /**
+    * Sum the document lengths of the pages of a site whose length is known.
+    *
+    * @param siteId site identifier
+    * @return total number of lemma occurrences and number of measured pages of the site
+    */
+    @Transactional(readOnly = true)
+    public TokenTotals getTokenTotalsBySite(int siteId) {
+        return wrapOperation(() -> pageRepository.findTokenTotalsBySite(siteId),
+                "Error summing page lengths of the site " + siteId, TokenTotals.EMPTY);
+    }
+
+    /**
+    * Get the document lengths of all pages of a site.
+    *
+    * @param siteId site identifier
+    * @return page lengths ordered by page ID, or null on error
+    */
+    @Transactional(readOnly = true)
+    public List<PageLength> findPageLengthsBySite(int siteId) {
+        return wrapOperation(() -> pageRepository.findPageLengthsBySite(siteId),
+                "Error finding page lengths of the site " + siteId, null);
+    }
+
+    /**
+    * Get the document lengths of pages, reading the pages in chunks.
+    *
+    * @param pageIds page identifiers
+    * @return page lengths of the existing pages, or null on error
+    */
+    @Transactional(readOnly = true)
+    public List<PageLength> findPageLengths(List<Integer> pageIds) {
+        if (pageIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return wrapOperation(() -> {
+            List<PageLength> lengths = new ArrayList<>(pageIds.size());
+            for (int from = 0; from < pageIds.size(); from += PAGE_ID_CHUNK_SIZE) {
+                lengths.addAll(pageRepository.findPageLengths(
+                        pageIds.subList(from, Math.min(from + PAGE_ID_CHUNK_SIZE, pageIds.size()))));
+            }
+            return lengths;
+        }, "Error finding page lengths", null);
+    }
+
+    /**
+    * Set the document length of a page.
+    *
+    * @param pageId page identifier
+    * @param tokenCount number of lemma occurrences on the page
+    * @return true if updated successfully
+    */
+    @Transactional
+    public boolean updatePageTokenCount(int pageId, int tokenCount) {
+        return wrapOperation(() -> pageRepository.updateTokenCount(pageId, tokenCount) > 0,
+                "Error updating the length of the page " + pageId, false);
+    }
+
+    /**
+    * Get the HTML content of a page.
+    *
+    * @param pageId page identifier
+    * @return Optional content
+    */
+    @Transactional(readOnly = true)
+    public Optional<String> findPageContent(int pageId) {
+        return wrapOperation(() -> pageContentRepository.findById(pageId).map(PageContentEntity::getContent),
+                "Error finding content of page with id = " + pageId, Optional.empty());
+    }
+
+    /**
+    * Get the title and plain text of several pages.
+    * <p>Pages saved before the text was stored have a null text.
+    *
+    * @param pageIds page identifiers
+    * @return map of page ID to PageText
+    */
+    @Transactional(readOnly = true)
+    public Map<Integer, PageText> findPageTexts(Collection<Integer> pageIds) {
+        if (pageIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return wrapOperation(() -> pageContentRepository.findTexts(pageIds).stream()
+                        .collect(Collectors.toMap(PageText::getPageId, text -> text)),
+                "Error finding text of pages " + pageIds, Collections.emptyMap());
+    }
+
+    /**
+    * Get the HTML content of several pages.
+    *
+    * @param pageIds page identifiers
+    * @return map of page ID to content
+    */
+    @Transactional(readOnly = true)
+    public Map<Integer, String> findPageContents(Collection<Integer> pageIds) {
+        return wrapOperation(() -> pageContentRepository.findAllById(pageIds).stream()
+                        .collect(Collectors.toMap(PageContentEntity::getPageId, PageContentEntity::getContent)),
+                "Error finding content of pages " + pageIds, Collections.emptyMap());
     }
 
     /**
@@ -217,6 +484,36 @@ public class DataManager {
         }, "Error saving page " + page, false);
     }
 
+    /**
+    * Save a new page together with its content.
+    * <p>Not transactional on purpose: the page is inserted in a transaction of its own, so a page
+    * already saved for the same path (unique site and path hash) is reported as false instead of
+    * marking the caller's transaction rollback-only. A page whose content cannot be saved is deleted again.
+    *
+    * @param page PageEntity object
+    * @param content content of the page; its page ID is set from the saved page
+    * @return true if saved successfully, false if the page already exists or saving failed
+    */
+    public boolean savePage(PageEntity page, PageContentEntity content) {
+        try {
+            pageRepository.save(page);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("{} page {} already exists on the site", TAG, page.getPath());
+            return false;
+        } catch (Exception e) {
+            log.error("{} Error saving page {}", TAG, page, e);
+            return false;
+        }
+        boolean saved = wrapOperation(() -> {
+            content.setPageId(page.getId());
+            pageContentRepository.save(content);
+            log.debug("{} pages {} saved with content", TAG, page);
+            return true;
+        }, "Error saving content of page " + page, false);
+        if (!saved) deletePage(page);
+        return saved;
+    }
+
     /**
     * Delete a page by object.
     *
@@ -310,28 +607,42 @@ public class DataManager {
     }
 
     /**
-    * Get a list of lemmas by their names.
+    * Get lightweight views of lemmas by names for a specific site.
     *
     * @param names list of names
-    * @return list of LemmaEntity
+    * @param siteId site identifier
+    * @return list of LemmaInfo
     */
     @Transactional(readOnly = true)
-    public List<LemmaEntity> findLemmas(List<String> names) {
-        return wrapOperation(() -> lemmaRepository.findByLemmaIn(names),
-                "Error finding lemma" + names, Collections.emptyList());
+    public List<LemmaInfo> findLemmaInfos(Collection<String> names, int siteId) {
+        return wrapOperation(() -> lemmaRepository.findLemmaInfos(names, siteId),
+                "Error finding lemma " + names + " on the site " + siteId, Collections.emptyList());
     }
 
     /**
-    * Get a list of lemmas by names for a specific site.
+    * Get lightweight views of the lemmas of a site within a range of IDs.
     *
-    * @param names list of names
-    * @param siteUrl site URL
-    * @return list of LemmaEntity
+    * @param siteId site identifier
+    * @param fromId smallest lemma ID (inclusive)
+    * @param toId largest lemma ID (inclusive)
+    * @return list of LemmaInfo, or null on error
+    */
+    @Transactional(readOnly = true)
+    public List<LemmaInfo> findLemmaInfosInRange(int siteId, int fromId, int toId) {
+        return wrapOperation(() -> lemmaRepository.findLemmaInfosInRange(siteId, fromId, toId),
+                "Error finding lemmas " + fromId + ".." + toId + " of the site " + siteId, null);
+    }
+
+    /**
+    * Get lightweight views of lemmas by their IDs.
+    *
+    * @param ids lemma identifiers
+    * @return list of LemmaInfo, or null on error
     */
     @Transactional(readOnly = true)
-    public List<LemmaEntity> findLemmas(List<String> names, String siteUrl) {
-        return wrapOperation(() -> lemmaRepository.findByLemmaInAndSiteEntity_Url(names, siteUrl),
-                "Error finding lemma " + names + " on the site " + siteUrl, Collections.emptyList());
+    public List<LemmaInfo> findLemmaInfosByIds(Collection<Integer> ids) {
+        return wrapOperation(() -> lemmaRepository.findLemmaInfosByIds(ids),
+                "Error finding lemmas " + ids, null);
     }
 
     /**
@@ -346,6 +657,21 @@ public class DataManager {
                 "Error counting lemmas on the site " + site.getId(), 0);
     }
 
+    /**
+    * Get the smallest and largest lemma IDs of a site by its ID.
+    *
+    * @param siteId site identifier
+    * @return array {min, max}, or an empty array if the site has no lemmas
+    */
+    @Transactional(readOnly = true)
+    public int[] getLemmaIdRange(int siteId) {
+        return wrapOperation(() -> {
+            Integer min = lemmaRepository.findMinIdBySite(siteId);
+            Integer max = lemmaRepository.findMaxIdBySite(siteId);
+            return (min == null || max == null) ? new int[0] : new int[]{min, max};
+        }, "Error finding lemma id range on the site " + siteId, new int[0]);
+    }
+
     /**
     * Save a lemma.
     *
@@ -417,6 +743,69 @@ public class DataManager {
             "Error counting pages on the site " + site.getId(), 0);
     }
 
+    /**
+    * Get the (page, lemma, rank) postings of lemmas on a site.
+    *
+    * @param siteId site identifier
+    * @param lemmaIds lemma identifiers
+    * @return list of IndexPosting, or null on error
+    */
+    @Transactional(readOnly = true)
+    public List<IndexPosting> findPostings(int siteId, Collection<Integer> lemmaIds) {
+        return wrapOperation(() -> indexRepository.findPostings(siteId, lemmaIds),
+                "Error finding postings on the site " + siteId, null);
+    }
+
+    /**
+    * Get the postings of a site's lemmas within a range of lemma IDs, ordered by lemma and page.
+    *
+    * @param siteId site identifier
+    * @param fromId smallest lemma ID (inclusive)
+    * @param toId largest lemma ID (inclusive)
+    * @return list of IndexPosting, or null on error
+    */
+    @Transactional(readOnly = true)
+    public List<IndexPosting> findPostingsInLemmaRange(int siteId, int fromId, int toId) {
+        return wrapOperation(() -> indexRepository.findPostingsInLemmaRange(siteId, fromId, toId),
+                "Error finding postings of lemmas " + fromId + ".." + toId + " on the site " + siteId, null);
+    }
+
+    /**
+    * Get the word positions of lemmas on pages of a site, reading the pages in chunks.
+    *
+    * @param siteId site identifier
+    * @param pageIds page identifiers
+    * @param lemmas lemma texts
+    * @return list of LemmaPositions
+    */
+    @Transactional(readOnly = true)
+    public List<LemmaPositions> findLemmaPositions(int siteId, List<Integer> pageIds, Collection<String> lemmas) {
+        if (pageIds.isEmpty() || lemmas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return wrapOperation(() -> {
+            List<LemmaPositions> positions = new ArrayList<>();
+            for (int from = 0; from < pageIds.size(); from += PAGE_ID_CHUNK_SIZE) {
+                List<Integer> chunk = pageIds.subList(from, Math.min(from + PAGE_ID_CHUNK_SIZE, pageIds.size()));
+                positions.addAll(indexRepository.findPositions(siteId, chunk, lemmas));
+            }
+            return positions;
+        }, "Error finding positions of lemmas " + lemmas + " on the site " + siteId, Collections.emptyList());
+    }
+
+    /**
+    * Get the IDs of the lemmas occurring on a page.
+    *
+    * @param siteId site identifier
+    * @param pageId page identifier
+    * @return list of lemma IDs
+    */
+    @Transactional(readOnly = true)
+    public List<Integer> findLemmaIdsByPage(int siteId, int pageId) {
+        return wrapOperation(() -> indexRepository.findLemmaIdsByPage(siteId, pageId),
+                "Error finding lemmas of the page " + pageId, Collections.emptyList());
+    }
+
     /**
     * Save a single index.
     *
@@ -4,12 +4,41 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import searchengine.config.SearchConfig;
+import searchengine.dto.search.IndexPosting;
+import searchengine.dto.search.LemmaInfo;
+import searchengine.dto.search.LemmaPositions;
+import searchengine.dto.search.PageLength;
+import searchengine.dto.search.PageText;
+import searchengine.dto.search.SearchHits;
 import searchengine.dto.search.SearchResult;
+import searchengine.dto.search.TokenTotals;
 import searchengine.logs.LogTag;
 import searchengine.model.*;
+import searchengine.services.search.Bm25Scorer;
+import searchengine.services.search.CorpusStats;
+import searchengine.services.search.InFlightQueries;
+import searchengine.services.search.InvertedIndex;
+import searchengine.services.search.LemmaPostings;
+import searchengine.services.search.LemmaSuggester;
+import searchengine.services.search.MaxScoreEvaluator;
+import searchengine.services.search.PostingIntersection;
+import searchengine.services.search.PositionCodec;
+import searchengine.services.search.PostingList;
+import searchengine.services.search.QueryConstraints;
+import searchengine.services.search.QueryResultCache;
+import searchengine.services.search.RankedPages;
+import searchengine.services.search.SearchDeadline;
+import searchengine.services.search.SearchExecutor;
+import searchengine.services.search.SearchResultSink;
+import searchengine.services.search.SiteIndex;
+import searchengine.services.search.SnippetEngine;
+import searchengine.services.search.SnippetMatcher;
 import searchengine.services.util.EntityFactory;
 import searchengine.services.util.SearchBuilder;
+import searchengine.services.util.SiteStatsRegistry;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
  /**
@@ -19,12 +48,13 @@ import java.util.stream.Collectors;
  * <ul>
  *   <li>Saves lemmas and indexes for a page.</li>
  *   <li>Decreases lemma frequency when a page is removed or updated.</li>
- *   <li>Recalculates the relative weight (rank) of lemmas for search relevance.</li>
+ *   <li>Records the raw term frequency of lemmas and the length of every page.</li>
  *   <li>Searches for pages based on a query, considering lemma frequencies and intersections.</li>
  * </ul>
  *
  * <p>Uses {@link LemmaProcessor} for lemma generation,
  * {@link DataManager} for database operations, and {@link EntityFactory} for entity creation.
+ * Queries are evaluated against the {@link InvertedIndex} and ranked with BM25 ({@link Bm25Scorer}).
  */
 
 @Service
@@ -37,8 +67,22 @@ public class LemmaFrequencyService {
     private final DataManager dataManager;
     private final LemmaProcessor lemmaProcessor;
     private final EntityFactory entityFactory;
+    private final InvertedIndex invertedIndex;
+    private final SearchExecutor searchExecutor;
+    private final QueryResultCache queryResultCache;
+    private final SnippetEngine snippetEngine;
+    private final SiteStatsRegistry siteStatsRegistry;
+    private final SearchConfig searchConfig;
+    private final Bm25Scorer bm25Scorer;
+    private final LemmaSuggester lemmaSuggester;
+    private final InFlightQueries inFlightQueries;
     private static final double PERCENT = 30.0f;
 
+    /**
+    * Number of result pages loaded and built together
+    */
+    private static final int RESULT_BATCH_SIZE = 20;
+
     /**
     * Decreases the frequencies of all lemmas present on the page.
     *
@@ -46,28 +90,31 @@ public class LemmaFrequencyService {
     * in the database consistent.
     *
     * @param page the page for which lemma frequencies should be decreased
+    * @param content the HTML content the page was indexed with
     */
     @Transactional
-    public void decreaseLemmaFrequencies(PageEntity page) {
-        String content = page.getContent();
+    public void decreaseLemmaFrequencies(PageEntity page, String content) {
         SiteEntity site = page.getSiteEntity();
         if (content == null || content.isBlank()) {
             log.warn("{} Empty content for page id={}", TAG, page.getId());
             return;
         }
 
-        Map<String, Integer> lemmas = lemmaProcessor.getLemmas(content);
-        for (Map.Entry<String, Integer> entry : lemmas.entrySet()) {
+        Map<String, List<Integer>> lemmas = lemmaProcessor.getLemmaPositions(content);
+        int[] deletedLemmas = {0};
+        for (Map.Entry<String, List<Integer>> entry : lemmas.entrySet()) {
             String lemmaName = entry.getKey();
-            int countToRemove = entry.getValue();
+            int countToRemove = entry.getValue().size();
 
             dataManager.findLemma(lemmaName, site).ifPresentOrElse(
                     lemmaEntity -> {
                         int newFrequency = lemmaEntity.getFrequency() - countToRemove;
                         lemmaEntity.setFrequency(Math.max(newFrequency, 0));
+                        lemmaEntity.setDf(Math.max(lemmaEntity.getDf() - 1, 0));
 
                         if (lemmaEntity.getFrequency() == 0) {
                             dataManager.deleteLemma(lemmaEntity.getId());
+                            deletedLemmas[0]++;
                             log.debug("{}  lemma deleted '{}'", TAG, lemmaName);
                         } else {
                             dataManager.saveLemma(lemmaEntity);
@@ -76,10 +123,13 @@ public class LemmaFrequencyService {
                     () -> log.debug("{}  lemma '{}' not found", TAG, lemmaName)
             );
         }
+        siteStatsRegistry.lemmasChanged(site.getId(), -deletedLemmas[0], -lemmas.size());
     }
 
     /**
-    * Thread-safe version of {@link #savePageLemmasAndIndexes(PageEntity, String)}.
+    * Saves the lemmas and index rows of a page and records its length.
+    * <p>The rank of an index row is the raw number of occurrences of the lemma on the page;
+    * relevance is computed at query time.
     *
     * @param page the page to be indexed
     * @param content the page content
@@ -90,10 +140,14 @@ public class LemmaFrequencyService {
             log.warn("{}  Empty content, lemma saving skipped for page id={}", TAG, page.getId());
             return;
         }
-        Map<String, Integer> lemmas = lemmaProcessor.getLemmas(content);
-        for (Map.Entry<String, Integer> entry : lemmas.entrySet()) {
+        Map<String, List<Integer>> lemmas = lemmaProcessor.getLemmaPositions(content);
+        int createdLemmas = 0;
+        int savedIndexes = 0;
+        int tokenCount = 0;
+        for (Map.Entry<String, List<Integer>> entry : lemmas.entrySet()) {
             String lemmaName = entry.getKey();
-            int frequencyToAdd = entry.getValue();
+            int frequencyToAdd = entry.getValue().size();
+            tokenCount += frequencyToAdd;
 
             Optional<LemmaEntity> lemmaOpt = dataManager.findLemma(
                     lemmaName,
@@ -103,16 +157,23 @@ public class LemmaFrequencyService {
 
             if (lemmaOpt.isEmpty()) {
                 lemmaEntity = entityFactory.createLemmaEntity(page.getSiteEntity(), lemmaName, frequencyToAdd);
-                dataManager.saveLemma(lemmaEntity);
+                if (dataManager.saveLemma(lemmaEntity)) createdLemmas++;
                 log.debug("{} new lemma created '{}'", TAG, lemmaName);
             } else {
                 lemmaEntity = lemmaOpt.get();
                 lemmaEntity.setFrequency(lemmaEntity.getFrequency() + frequencyToAdd);
+                lemmaEntity.setDf(lemmaEntity.getDf() + 1);
                 dataManager.saveLemma(lemmaEntity);
             }
             IndexEntity index = entityFactory.createIndexEntity(page, lemmaEntity, frequencyToAdd);
-            dataManager.saveIndex(index);
+            if (searchConfig.isStorePositions()) {
+                index.setPositions(PositionCodec.encode(entry.getValue()));
+            }
+            if (dataManager.saveIndex(index)) savedIndexes++;
         }
+        page.setTokenCount(tokenCount);
+        dataManager.updatePageTokenCount(page.getId(), tokenCount);
+        siteStatsRegistry.lemmasChanged(page.getSiteEntity().getId(), createdLemmas, savedIndexes);
     }
 
     /**
@@ -126,180 +187,470 @@ public class LemmaFrequencyService {
     }
 
     /**
-    * Recalculates the weight (rank) of lemmas for all pages of the site.
+    * Returns the active sites a query runs against.
     *
-    * <p>Used after full site indexing or when recalculating relevance.
+    * @param url the site (can be null)
+    * @return the site with the given URL, or all active sites if no URL is provided
+    */
+    private List<SiteEntity> findSearchSites(String url) {
+        return (url == null || url.isBlank())
+                ? dataManager.getAllSites()
+                : dataManager.findSite(url).map(List::of).orElse(List.of());
+    }
+
+    /**
+    * Finds the query lemmas of a site that are rare enough to be used for ranking.
+    * <p>Postings come from the {@link InvertedIndex}; a site that is not loaded there is read from the database.
+    * Lemmas occurring on more than {@link #PERCENT} percent of the site's pages are dropped.
     *
-    * @param site the site for which lemma ranks should be recalculated
+    * @param index the loaded index of the site, or null to read the database
+    * @param siteId the ID of the site
+    * @param lemmas list of lemmas to search for
+    * @return lemmas of the site with their postings
     */
-    @Transactional
-    public void recalculateRankForAllSites(SiteEntity site) {
-        int totalPages = dataManager.getCountPagesBySite(site);
-        List<LemmaEntity> lemmas = dataManager.findAllLemmasBySite(site);
-
-        for (LemmaEntity lemma : lemmas) {
-            int df = dataManager.getCountPagesWhereLemma(lemma, site);
-            List<IndexEntity> indexes = dataManager.getAllIndexesBySite(lemma, site);
-
-            for (IndexEntity index : indexes) {
-                float tf = index.getRank();
-                float newRank = (float) (tf * Math.log((double) totalPages / (df + 1)));
-                index.setRank(newRank);
-            }
-            dataManager.saveIndex(indexes);
+    private List<LemmaPostings> findSiteLemmas(SiteIndex index, int siteId, List<String> lemmas) {
+        if (index != null) {
+            int totalPages = index.getPageCount();
+            return index.find(lemmas).stream()
+                    .filter(lemma -> isSelective(lemma.getPostings().size(), totalPages))
+                    .toList();
         }
+        return getLemmaFromDataBase(siteId, lemmas);
     }
 
+    /**
+    * Checks the {@link #PERCENT} cutoff.
+    *
+    * @param df number of pages containing the lemma
+    * @param totalPages number of pages of the site
+    * @return true if the lemma is rare enough to be used for ranking
+    */
+    private static boolean isSelective(int df, long totalPages) {
+        return totalPages > 0 && df * 100.0 / totalPages <= PERCENT;
+    }
 
     /**
-    * Retrieves lemmas from the database.
-    * <p>If a URL is provided, filters by site/page; otherwise returns all matching lemmas.
+    * Returns the number of pages of a site, from the statistics registry when it knows the site.
     *
+    * @param siteId the ID of the site
+    * @return number of pages
+    */
+    private long getSitePageCount(int siteId) {
+        long cached = siteStatsRegistry.getPageCount(siteId);
+        return cached >= 0 ? cached : dataManager.getCountPagesBySite(siteId);
+    }
+
+    /**
+    * Retrieves lemmas of a site with their postings from the database.
+    * <p>The cutoff is applied to the stored document frequency first, so postings are read only
+    * for the lemmas used in ranking.
+    *
+    * @param siteId the ID of the site
     * @param lemmas list of lemmas to search for
-    * @param url the site or specific page (can be null)
-    * @return list of lemma entities from the database
+    * @return selective lemmas of the site with their postings
     */
-    private List<LemmaEntity> getLemmaFromDataBase(List<String> lemmas, String url) {
-        return (url == null || url.isBlank())
-                ? dataManager.findLemmas(lemmas)
-                : dataManager.findLemmas(lemmas, url);
+    private List<LemmaPostings> getLemmaFromDataBase(int siteId, List<String> lemmas) {
+        List<LemmaInfo> stored = dataManager.findLemmaInfos(lemmas, siteId);
+        if (stored.isEmpty()) return List.of();
+        long totalPages = getSitePageCount(siteId);
+        List<LemmaInfo> infos = stored.stream()
+                .filter(info -> isSelective(info.getDf(), totalPages))
+                .toList();
+        if (infos.isEmpty()) return List.of();
+        List<IndexPosting> postings = dataManager.findPostings(siteId,
+                infos.stream().map(LemmaInfo::getId).toList());
+        if (postings == null) return List.of();
+        Map<Integer, List<IndexPosting>> postingsByLemma = postings.stream()
+                .collect(Collectors.groupingBy(IndexPosting::getLemmaId));
+        List<LemmaPostings> found = new ArrayList<>(infos.size());
+        for (LemmaInfo info : infos) {
+            List<IndexPosting> lemmaPostings = postingsByLemma.getOrDefault(info.getId(), List.of());
+            int[] pageIds = new int[lemmaPostings.size()];
+            float[] ranks = new float[lemmaPostings.size()];
+            for (int i = 0; i < pageIds.length; i++) {
+                pageIds[i] = lemmaPostings.get(i).getPageId();
+                ranks[i] = lemmaPostings.get(i).getRank();
+            }
+            found.add(new LemmaPostings(info.getId(), info.getSiteId(), info.getLemma(), info.getFrequency(),
+                    PostingList.of(pageIds, ranks)));
+        }
+        return found;
     }
 
     /**
     * Performs a search for pages by query.
+    * <p>Every site is evaluated on its own: its lemmas are intersected and ranked, and the best
+    * pages of each site are merged. An all-sites query evaluates the sites in parallel on the
+    * {@link SearchExecutor}. Ranked pages of repeated queries are taken from the {@link QueryResultCache},
+    * and identical concurrent queries share one ranking through {@link InFlightQueries}.
+    * Phrase and NEAR constraints of the query ({@link QueryConstraints}) filter the matching pages by
+    * stored word positions. Misspelled lemmas missing from every searched site are replaced with the
+    * closest known lemma and reported in the result. Page metadata and content are loaded just for
+    * the requested slice of results. Once the deadline expires the remaining sites and phases are
+    * skipped and the hits are marked partial.
     *
     * @param query the search query
     * @param url the site (if null — search across all sites)
     * @param offset pagination offset
     * @param limit maximum number of results
-    * @return list of {@link SearchResult} with relevant pages
+    * @param deadline time budget of the request
+    * @return {@link SearchHits} with the requested results and the total number of matching pages
     */
-    public List<SearchResult> searchResult(String query, String url, int offset, int limit) {
+    public SearchHits searchResult(String query, String url, int offset, int limit, SearchDeadline deadline) {
+        CollectingSink sink = new CollectingSink();
+        streamResults(query, url, offset, limit, deadline, sink);
+        return sink.toHits();
+    }
+
+    /**
+    * Performs a search for pages by query and hands the results over one at a time.
+    * <p>Works like {@link #searchResult}, but reports the ranking to the sink as soon as it is known and
+    * builds the requested slice in batches of {@link #RESULT_BATCH_SIZE} pages, passing on each result
+    * as its snippet is built. Only one batch of page texts is held at a time, whatever the limit.
+    * A cached or shared ranking may hold more pages than requested; results stop at {@code offset + limit}.
+    *
+    * @param query the search query
+    * @param url the site (if null — search across all sites)
+    * @param offset pagination offset
+    * @param limit maximum number of results
+    * @param deadline time budget of the request
+    * @param sink receives the ranking header and then the results
+    */
+    public void streamResults(String query, String url, int offset, int limit, SearchDeadline deadline,
+                              SearchResultSink sink) {
         log.info("{}  Searching for query '{}' on site '{}'", TAG, query, url);
-        List<String> lemmas = lemmaProcessor.getLemmasForSearch(query);
-        System.out.println("Lemmas for query: " + lemmas);
-        if (lemmas.isEmpty()) {
+        List<String> queryLemmas = lemmaProcessor.getLemmasForSearch(query);
+        if (queryLemmas.isEmpty()) {
             log.warn("{}  No lemmas found for query '{}'", TAG, query);
-            return List.of();
+            sink.header(0, Map.of(), false);
+            return;
         }
 
-        List<LemmaEntity> lemmasEntity = getLemmaFromDataBase(lemmas, url);
-        if (lemmasEntity.isEmpty()) {
-            log.warn("{}  No lemmas found in the database for query '{}'", TAG, query);
-            return List.of();
+        QueryConstraints constraints = QueryConstraints.parse(query, lemmaProcessor);
+        Map<String, String> corrections = correctLemmas(queryLemmas, constraints, url);
+        List<String> lemmas = corrections.isEmpty() ? queryLemmas : queryLemmas.stream()
+                .map(lemma -> corrections.getOrDefault(lemma, lemma))
+                .distinct()
+                .toList();
+        int topK = Math.addExact(offset, limit);
+        RankedPages ranked = queryResultCache.get(lemmas, constraints, url, topK);
+        if (ranked == null) {
+            ranked = inFlightQueries.rank(lemmas, constraints, url, topK, deadline, k -> {
+                long generation = queryResultCache.getGeneration();
+                RankedPages pages = rankPages(lemmas, constraints, url, k, deadline);
+                if (!pages.isPartial()) queryResultCache.put(lemmas, constraints, url, generation, pages);
+                return pages;
+            });
+        }
+        sink.header(ranked.getTotalHits(), corrections, ranked.isPartial());
+        if (ranked.size() <= offset) {
+            log.info("{}  Search returned no results for query '{}'", TAG, query);
+            return;
         }
 
+        SearchBuilder builder = new SearchBuilder(snippetEngine);
+        SnippetMatcher matcher = snippetEngine.matcherFor(lemmas, query);
+        int end = Math.min(ranked.size(), topK);
+        int built = 0;
+        for (int from = offset; from < end; from += RESULT_BATCH_SIZE) {
+            int to = Math.min(from + RESULT_BATCH_SIZE, end);
+            built += buildResults(ranked, from, to, lemmas, builder, matcher, deadline, sink);
+        }
+        log.info("{}  Found {} of {} results for query '{}'", TAG, built, ranked.getTotalHits(), query);
+    }
 
-        List<LemmaEntity> filtered = lemmasEntity.stream()
-                .filter(lemma -> {
-                    float totalPages = dataManager.getCountPagesBySite(lemma.getSiteEntity());
-                    float onePercent = totalPages / 100.0f;
-                    float lemmaPercent = lemma.getIndexEntityList().size() / onePercent;
-                    return lemmaPercent <= PERCENT;
-                })
-                .sorted(Comparator.comparingInt(LemmaEntity::getFrequency))
-                .toList();
-
-        if (filtered.isEmpty()) {
-            log.warn("{}  No relevant lemmas remain after filtering", TAG);
-            return List.of();
+    /**
+    * Loads one batch of ranked pages and builds their results.
+    *
+    * @param ranked the ranked pages of the query
+    * @param from index of the first ranked page of the batch
+    * @param to index after the last ranked page of the batch
+    * @param lemmas lemmas of the query
+    * @param builder builds the results
+    * @param matcher the matcher of the query used for highlighting
+    * @param deadline time budget of the request; once expired, snippets are placed without stored positions
+    * @param sink receives the results
+    * @return number of results built
+    */
+    private int buildResults(RankedPages ranked, int from, int to, List<String> lemmas, SearchBuilder builder,
+                             SnippetMatcher matcher, SearchDeadline deadline, SearchResultSink sink) {
+        List<Integer> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(ranked.getPageIds()[i]);
+        }
+        Map<Integer, PageEntity> pageEntities = dataManager.findPagesWithSites(pageIds);
+        Map<Integer, PageText> texts = findPageTexts(pageIds);
+        List<Map.Entry<PageEntity, Float>> pageSlice = new ArrayList<>(pageIds.size());
+        for (int i = from; i < to; i++) {
+            PageEntity page = pageEntities.get(ranked.getPageIds()[i]);
+            if (page != null) {
+                pageSlice.add(Map.entry(page, ranked.getScores()[i]));
+            }
         }
+        Map<Integer, int[]> wordWindows = deadline.isExpired() ? Map.of() : findWordWindows(pageEntities.values(), lemmas);
+        builder.build(pageSlice, texts, wordWindows, matcher, sink::result);
+        return pageSlice.size();
+    }
 
-        List<IndexEntity> indexes = findIndexesForAllLemmas(filtered, url);
-        if (indexes.isEmpty()) {
-            log.info("{}  Search returned no results — intersection is empty", TAG);
-            return List.of();
+    /**
+    * Finds corrections for misspelled query lemmas with the {@link LemmaSuggester}.
+    * <p>Only lemmas unknown to every searched site are corrected: a lemma found in the index of a site,
+    * or in its lemmas table when the site is not loaded, is kept even if the dictionary lags behind.
+    * Lemmas of phrase and NEAR constraints are kept as typed, since their positions are matched literally.
+    *
+    * @param lemmas lemmas of the query
+    * @param constraints positional constraints of the query
+    * @param url the site (if null — search across all sites)
+    * @return corrected lemmas keyed by the original ones
+    */
+    private Map<String, String> correctLemmas(List<String> lemmas, QueryConstraints constraints, String url) {
+        Set<String> constrained = constraints.lemmas();
+        List<String> candidates = lemmas.stream().filter(lemma -> !constrained.contains(lemma)).toList();
+        if (candidates.isEmpty()) return Map.of();
+        List<Integer> siteIds = siteStatsRegistry.getActiveSites().stream()
+                .filter(counters -> url == null || url.isBlank() || url.equals(counters.getUrl()))
+                .map(SiteStatsRegistry.SiteCounters::getSiteId)
+                .toList();
+        Set<String> unknown = new LinkedHashSet<>(candidates);
+        for (int siteId : siteIds) {
+            if (unknown.isEmpty()) return Map.of();
+            SiteIndex index = invertedIndex.getSite(siteId);
+            if (index != null) {
+                index.find(unknown).forEach(postings -> unknown.remove(postings.getLemma()));
+                continue;
+            }
+            dataManager.findLemmaInfos(List.copyOf(unknown), siteId).forEach(lemma -> unknown.remove(lemma.getLemma()));
         }
+        return unknown.isEmpty() ? Map.of() : lemmaSuggester.correct(unknown, siteIds);
+    }
 
-        Map<PageEntity, Float> absolute = calcAbsoluteRank(indexes);
-        Map<PageEntity, Float> relative = calcRelativeRank(absolute, indexes, lemmas);
-        SearchBuilder builder = new SearchBuilder();
-        List<SearchResult> results = builder.build(relative, offset, limit, query);
-        log.info("{}  Found {} results for query '{}'", TAG, results.size(), query);
-        return results;
+    /**
+    * Loads the title and plain text of the result pages.
+    * <p>Pages saved before the text was stored are converted from their HTML.
+    *
+    * @param pageIds IDs of the result pages
+    * @return map of page ID to its text
+    */
+    private Map<Integer, PageText> findPageTexts(List<Integer> pageIds) {
+        Map<Integer, PageText> texts = new HashMap<>(dataManager.findPageTexts(pageIds));
+        List<Integer> withoutText = pageIds.stream()
+                .filter(id -> texts.get(id) == null || texts.get(id).getText() == null)
+                .toList();
+        if (!withoutText.isEmpty()) {
+            dataManager.findPageContents(withoutText).forEach((id, html) -> {
+                PageContentEntity content = entityFactory.createPageContentEntity(html);
+                texts.put(id, new PageText(id, content.getTitle(), content.getText()));
+            });
+        }
+        return texts;
     }
 
     /**
-    * Finds page indexes for all lemmas.
-    * <p>If a URL is provided, intersects pages by lemmas for a single site; otherwise merges all pages by lemmas.
+    * Finds the densest window of query lemmas on each result page from the stored word positions.
     *
-    * @param lemmas list of lemmas
-    * @param url the site or null
-    * @return list of page indexes
+    * @param pages the result pages with their sites
+    * @param lemmas lemmas of the query
+    * @return map of page ID to the {first, last} word positions of the window; empty if positions are not stored
     */
-    private List<IndexEntity> findIndexesForAllLemmas(List<LemmaEntity> lemmas, String url) {
-        if (lemmas.isEmpty()) return List.of();
-
-        if (url != null && !url.isBlank()) {
-            List<IndexEntity> baseIndexes = new ArrayList<>(lemmas.get(0).getIndexEntityList());
-            for (int i = 1; i < lemmas.size(); i++) {
-                Set<Integer> pagesWithCurrentLemma = lemmas.get(i).getIndexEntityList().stream()
-                        .map(idx -> idx.getPageEntity().getId())
-                        .collect(Collectors.toSet());
-                baseIndexes = baseIndexes.stream()
-                        .filter(idx -> pagesWithCurrentLemma.contains(idx.getPageEntity().getId()))
-                        .toList();
+    private Map<Integer, int[]> findWordWindows(Collection<PageEntity> pages, List<String> lemmas) {
+        if (!searchConfig.isStorePositions()) return Map.of();
+        Map<Integer, List<Integer>> pageIdsBySite = pages.stream().collect(Collectors.groupingBy(
+                page -> page.getSiteEntity().getId(), Collectors.mapping(PageEntity::getId, Collectors.toList())));
+        Map<Integer, List<int[]>> positionsByPage = new HashMap<>();
+        pageIdsBySite.forEach((siteId, pageIds) -> {
+            for (LemmaPositions row : dataManager.findLemmaPositions(siteId, pageIds, lemmas)) {
+                if (row.getPositions() == null) continue;
+                positionsByPage.computeIfAbsent(row.getPageId(), k -> new ArrayList<>())
+                        .add(PositionCodec.decode(row.getPositions()));
             }
-            return baseIndexes;
-        } else {
-            return lemmas.stream()
-                    .flatMap(l -> l.getIndexEntityList().stream())
-                    .distinct() // убираем дубликаты
-                    .toList();
+        });
+        Map<Integer, int[]> windows = new HashMap<>();
+        positionsByPage.forEach((pageId, positions) -> {
+            int[] window = snippetEngine.densestWindow(positions);
+            if (window != null) windows.put(pageId, window);
+        });
+        return windows;
+    }
+
+    /**
+    * Ranks the pages matching the query lemmas.
+    * <p>A single site is evaluated on the calling thread, several sites in parallel on the {@link SearchExecutor}.
+    * Sites return weighted BM25 scores, so they are merged by relevance and normalized once over the whole result.
+    *
+    * @param lemmas list of lemmas from the search query
+    * @param constraints positional constraints of the query
+    * @param url the site (if null — search across all sites)
+    * @param topK number of best pages to keep
+    * @param deadline time budget of the request
+    * @return the best pages of all searched sites
+    */
+    private RankedPages rankPages(List<String> lemmas, QueryConstraints constraints, String url, int topK,
+                                  SearchDeadline deadline) {
+        List<SiteEntity> sites = findSearchSites(url);
+        if (sites.size() == 1) {
+            return calcRelativeRank(searchSite(sites.get(0).getId(), lemmas, constraints, topK, deadline));
         }
+        return calcRelativeRank(RankedPages.merge(searchExecutor.invokeAll(sites.stream()
+                .map(site -> (Supplier<RankedPages>) () -> searchSite(site.getId(), lemmas, constraints, topK, deadline))
+                .toList(), RankedPages.EMPTY), topK));
     }
 
     /**
-    * Calculates the absolute rank of pages.
-    * <p>Sums the weights of all page indexes.
+    * Evaluates a query on one site.
+    * <p>Intersects the pages of the site's relevant lemmas, checks the positional constraints and ranks them.
+    * The deadline is checked before each phase; an expired one yields an empty partial result.
     *
-    * @param indexes list of indexes
-    * @return map of pages and their absolute ranks
+    * @param siteId the ID of the site
+    * @param lemmas list of lemmas from the search query
+    * @param constraints positional constraints of the query
+    * @param topK number of best pages to keep
+    * @param deadline time budget of the request
+    * @return the best pages of the site with their weighted BM25 scores
     */
-    private Map<PageEntity, Float> calcAbsoluteRank(List<IndexEntity> indexes) {
-        Map<PageEntity, Float> pageRanks = new HashMap<>();
-        for (IndexEntity idx : indexes) {
-            pageRanks.merge(idx.getPageEntity(), idx.getRank(), Float::sum);
+    private RankedPages searchSite(int siteId, List<String> lemmas, QueryConstraints constraints, int topK,
+                                   SearchDeadline deadline) {
+        if (deadline.isExpired()) return timedOut(siteId);
+        SiteIndex index = invertedIndex.getSite(siteId);
+        List<LemmaPostings> filtered = findSiteLemmas(index, siteId, lemmas).stream()
+                .sorted(Comparator.comparingInt(LemmaPostings::getFrequency))
+                .toList();
+        if (filtered.isEmpty()) return RankedPages.EMPTY;
+        if (deadline.isExpired()) return timedOut(siteId);
+
+        List<int[]> pageIdLists = filtered.stream().map(lemma -> lemma.getPostings().pageIds()).toList();
+        int[] pages = findIndexesForAllLemmas(pageIdLists);
+        if (!constraints.isEmpty()) {
+            if (deadline.isExpired()) return timedOut(siteId);
+            pages = filterByPositions(siteId, pages, constraints);
         }
-        log.info("{}  Absolute relevance calculated for {} pages", TAG, pageRanks.size());
-        return pageRanks;
+        if (pages.length == 0) return RankedPages.EMPTY;
+        if (deadline.isExpired()) return timedOut(siteId);
+
+        CorpusStats stats = index != null ? index.getStats() : findCorpusStats(siteId, pages);
+        MaxScoreEvaluator evaluator = new MaxScoreEvaluator(bm25Scorer, stats, topK);
+        RankedPages absolute = evaluator.evaluate(
+                filtered.stream().map(LemmaPostings::getPostings).toList(), pageIdLists, pages);
+        log.debug("{}  Site id={}: scored {} of {} matching pages", TAG, siteId, evaluator.getScoredPages(), pages.length);
+        return weightByMatchedLemmas(absolute, filtered.size(), lemmas);
     }
 
     /**
-    * Calculates the relative rank of pages.
-    * <p>The adjusted rank considers the frequency of matching lemmas in the query and is normalized by the maximum value.
+    * Result of a site whose evaluation was skipped because the deadline expired.
+    */
+    private RankedPages timedOut(int siteId) {
+        log.warn("{}  Search deadline expired, site id={} skipped", TAG, siteId);
+        return RankedPages.EMPTY.asPartial();
+    }
+
+    /**
+    * Finds the pages of a site matching all its relevant query lemmas.
+    * <p>Intersects the sorted page lists, rarest lemma first.
     *
-    * @param absoluteRanks map of pages and their absolute ranks
-    * @param indexes list of indexes
+    * @param pageIdLists sorted page IDs of each lemma
+    * @return sorted IDs of the matching pages
+    */
+    private int[] findIndexesForAllLemmas(List<int[]> pageIdLists) {
+        return PostingIntersection.intersectAll(pageIdLists);
+    }
+
+    /**
+    * Keeps the pages satisfying the positional constraints of the query.
+    * <p>Pages indexed without positions are kept, since their constraints cannot be checked.
+    *
+    * @param siteId the ID of the site
+    * @param pages sorted IDs of the matching pages
+    * @param constraints positional constraints of the query
+    * @return sorted IDs of the pages satisfying the constraints
+    */
+    private int[] filterByPositions(int siteId, int[] pages, QueryConstraints constraints) {
+        if (pages.length == 0 || !searchConfig.isStorePositions()) return pages;
+        Map<Integer, Map<String, int[]>> positionsByPage = new HashMap<>();
+        List<Integer> pageIds = Arrays.stream(pages).boxed().toList();
+        for (LemmaPositions row : dataManager.findLemmaPositions(siteId, pageIds, constraints.lemmas())) {
+            positionsByPage.computeIfAbsent(row.getPageId(), k -> new HashMap<>())
+                    .put(row.getLemma(), row.getPositions() == null ? null : PositionCodec.decode(row.getPositions()));
+        }
+        return Arrays.stream(pages)
+                .filter(page -> constraints.matches(positionsByPage.getOrDefault(page, Map.of())))
+                .toArray();
+    }
+
+    /**
+    * Reads the corpus statistics of a site that is not loaded in the {@link InvertedIndex}.
+    * <p>The page count comes from the statistics registry; only the lengths of the matching pages are read.
+    *
+    * @param siteId the ID of the site
+    * @param pages sorted IDs of the matching pages
+    * @return statistics covering the matching pages
+    */
+    private CorpusStats findCorpusStats(int siteId, int[] pages) {
+        List<PageLength> lengths = dataManager.findPageLengths(Arrays.stream(pages).boxed().toList());
+        TokenTotals totals = dataManager.getTokenTotalsBySite(siteId);
+        return CorpusStats.of((int) getSitePageCount(siteId), totals.getPages(), totals.getTokens(),
+                lengths == null ? List.of() : lengths);
+    }
+
+    /**
+    * Weights the BM25 scores of a site by the share of query lemmas used for ranking.
+    * <p>Every matching page of the site contains all of them.
+    *
+    * @param absolute the best pages of the site by BM25 score
+    * @param matchedLemmas number of query lemmas found on every matching page
     * @param queryLemmas list of lemmas from the search query
-    * @return map of pages and their relative ranks, sorted in descending order
+    * @return the same pages with weighted scores
     */
-    private Map<PageEntity, Float> calcRelativeRank(Map<PageEntity, Float> absoluteRanks, List<IndexEntity> indexes, List<String> queryLemmas) {
-        if (absoluteRanks.isEmpty()) return Map.of();
-        Map<PageEntity, Integer> lemmaMatches = new HashMap<>();
-        for (IndexEntity idx : indexes) {
-            lemmaMatches.merge(idx.getPageEntity(), 1, Integer::sum);
+    private RankedPages weightByMatchedLemmas(RankedPages absolute, int matchedLemmas, List<String> queryLemmas) {
+        if (absolute.size() == 0) return absolute;
+        float weight = 1.0f + (matchedLemmas / (float) queryLemmas.size());
+        float[] scores = new float[absolute.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = absolute.getScores()[i] * weight;
         }
+        return new RankedPages(absolute.getPageIds(), scores, absolute.getTotalHits(), absolute.isPartial());
+    }
+
+    /**
+    * Calculates the relative rank of the best pages.
+    * <p>The weighted scores of all searched sites are normalized by the best one.
+    *
+    * @param ranked the best pages of all searched sites by weighted score
+    * @return the best pages in descending order of relative rank
+    */
+    private RankedPages calcRelativeRank(RankedPages ranked) {
+        if (ranked.size() == 0) return ranked;
+        float maxRank = ranked.getScores()[0];
+        if (maxRank == 0) maxRank = 1.0f;
+        float[] scores = new float[ranked.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = ranked.getScores()[i] / maxRank;
+        }
+        return new RankedPages(ranked.getPageIds(), scores, ranked.getTotalHits(), ranked.isPartial());
+    }
 
-        float maxRank = absoluteRanks.values().stream().max(Float::compare).orElse(1.0f);
-        Map<PageEntity, Float> relativeRanks = new HashMap<>();
+    /**
+    * Gathers streamed results into {@link SearchHits}
+    */
+    private static final class CollectingSink implements SearchResultSink {
+
+        private final List<SearchResult> results = new ArrayList<>();
+        private int total;
+        private Map<String, String> corrections = Map.of();
+        private boolean partial;
+
+        @Override
+        public void header(int total, Map<String, String> corrections, boolean partial) {
+            this.total = total;
+            this.corrections = corrections;
+            this.partial = partial;
+        }
 
-        for (Map.Entry<PageEntity, Float> entry : absoluteRanks.entrySet()) {
-            PageEntity page = entry.getKey();
-            float base = entry.getValue() / maxRank;
-            int matchCount = lemmaMatches.getOrDefault(page, 0);
-            float weight = 1.0f + (matchCount / (float) queryLemmas.size());
-            relativeRanks.put(page, base * weight);
+        @Override
+        public void result(SearchResult result) {
+            results.add(result);
         }
 
-        return relativeRanks.entrySet().stream()
-                .sorted(Map.Entry.<PageEntity, Float>comparingByValue().reversed())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (a, b) -> b,
-                        LinkedHashMap::new
-                ));
+        SearchHits toHits() {
+            return new SearchHits(total, results, corrections, partial);
+        }
     }
 }
-
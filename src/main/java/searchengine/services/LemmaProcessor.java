@@ -84,6 +84,39 @@ public class LemmaProcessor {
         return countLemmas(lemmas);
     }
 
+    /**
+    * Retrieves the word positions of every lemma in the text.
+    * <p>A position is the index of the word among the whitespace-separated tokens of the
+    * page text, so positions of different lemmas can be compared for phrase and proximity checks.
+    *
+    * @param text the source text
+    * @return map of lemma -> ascending word positions
+    */
+    public Map<String, List<Integer>> getLemmaPositions(String text) {
+        List<String> tokens = lemmaFilter.splitWords(text);
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String word = lemmaFilter.cleanWord(tokens.get(i));
+            if (!lemmaFilter.isIndexableWord(word)) continue;
+            word = lemmaFilter.normalizeRussianWord(word);
+            if (word.isEmpty()) continue;
+            List<String> forms;
+            try {
+                forms = lemmaFilter.getLuceneMorphology().getNormalForms(word);
+            } catch (WrongCharaterException e) {
+                log.debug("{}  Skipped invalid word for morphology: {}", TAG, word);
+                continue;
+            }
+            for (String lemma : forms) {
+                List<Integer> lemmaPositions = positions.computeIfAbsent(lemma, k -> new ArrayList<>());
+                if (lemmaPositions.isEmpty() || lemmaPositions.get(lemmaPositions.size() - 1) != i) {
+                    lemmaPositions.add(i);
+                }
+            }
+        }
+        return positions;
+    }
+
     /**
     * Retrieves a list of unique lemmas suitable for search.
     *
@@ -80,10 +80,15 @@ public class ManagerTasks {
     /**
     * Updates the status of sites after a forced stop of indexing.
     * <p>All active sites are marked as FAILED with the error specified.
+    * Unfinished staging generations are discarded instead, leaving the live index untouched.
     */
     private void updateSitesAfterStop() {
         Collection<SiteEntity> activeSites = context.getVisitedUrlStore().getActiveSites();
         for (SiteEntity site : activeSites) {
+            if (!site.isActive()) {
+                context.getGenerationCleaner().discard(site.getId());
+                continue;
+            }
             site.setStatus(Status.FAILED);
             site.setLastError("User stopped the indexing");
             site.setStatusTime(LocalDateTime.now());
@@ -7,14 +7,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import searchengine.dto.PageResponse;
 import searchengine.logs.LogTag;
+import searchengine.model.PageContentEntity;
 import searchengine.model.PageEntity;
 import searchengine.model.SiteEntity;
 import searchengine.services.serviceinterfaces.PageIndexingService;
 import searchengine.services.util.IndexingContext;
 import searchengine.services.util.Stopwatch;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.net.URL;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
  /*
  * Service for indexing a single page
@@ -44,6 +49,7 @@ public class PageIndexingServiceImpl implements PageIndexingService {
     * 2. Determines which site the URL belongs to.
     * 3. If the page already exists in the database, removes old lemmas and the page itself.
     * 4. Saves the page and recalculates lemmas.
+    * 5. Refreshes the changed lemmas in the in-memory search index and invalidates cached search results.
     *
     * @param url the page URL
     * @return true if the page was successfully indexed, false if an error occurred
@@ -67,15 +73,29 @@ public class PageIndexingServiceImpl implements PageIndexingService {
             return false;
         }
 
+        Set<Integer> changedLemmas = new HashSet<>();
+        Set<Integer> changedPages = new HashSet<>();
         context.getDataManager()
-                .findPathPage(url)
+                .findPage(siteEntity, url)
                 .ifPresent(existingPage -> {
-                    context.getLemmaFrequencyService().decreaseLemmaFrequencies(existingPage);
+                    changedPages.add(existingPage.getId());
+                    changedLemmas.addAll(context.getDataManager()
+                            .findLemmaIdsByPage(siteEntity.getId(), existingPage.getId()));
+                    String oldContent = context.getDataManager().findPageContent(existingPage.getId()).orElse("");
+                    context.getLemmaFrequencyService().decreaseLemmaFrequencies(existingPage, oldContent);
                     context.getDataManager().deletePage(existingPage);
+                    context.getSiteStatsRegistry().pageRemoved(siteEntity.getId(),
+                            oldContent.getBytes(StandardCharsets.UTF_8).length);
                     log.info("{}  Old page {} was removed before updating", TAG, url);
                 });
 
-        savePageAndLemmas(siteEntity, url, response);
+        savePageAndLemmas(siteEntity, url, response).ifPresent(page -> {
+            changedPages.add(page.getId());
+            changedLemmas.addAll(context.getDataManager().findLemmaIdsByPage(siteEntity.getId(), page.getId()));
+        });
+        context.getInvertedIndex().refreshLemmas(siteEntity.getId(), changedLemmas);
+        context.getInvertedIndex().refreshPages(siteEntity.getId(), changedPages);
+        context.getQueryResultCache().invalidate();
         stopwatch.stop();
         log.info("{}  Page {} successfully saved for site {}. Indexing time: {} sec.",
                 TAG, url, siteEntity.getUrl(), stopwatch.getSeconds());
@@ -134,15 +154,22 @@ public class PageIndexingServiceImpl implements PageIndexingService {
     * @param site     the site to which the page belongs
     * @param path     the page URL
     * @param response the response containing the page content
+    * @return the saved page, or empty if it could not be saved
     */
-    private void savePageAndLemmas(SiteEntity site, String path, PageResponse response) {
+    private Optional<PageEntity> savePageAndLemmas(SiteEntity site, String path, PageResponse response) {
         PageEntity page = context.getEntityFactory().createPageEntity(
                 site,
                 path,
-                response.getStatusCode(),
-                response.getBody()
+                response.getStatusCode()
         );
-        context.getDataManager().savePage(page);
+        PageContentEntity content = context.getEntityFactory().createPageContentEntity(response.getBody());
+        if (!context.getDataManager().savePage(page, content)) {
+            log.warn("{}  Page {} could not be saved", TAG, path);
+            return Optional.empty();
+        }
+        context.getSiteStatsRegistry().pageAdded(site.getId(),
+                response.getBody().getBytes(StandardCharsets.UTF_8).length);
         context.getLemmaFrequencyService().savePageLemmasAndIndexes(page, response.getBody());
+        return Optional.of(page);
     }
 }
@@ -3,11 +3,16 @@ package searchengine.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import searchengine.dto.search.SearchResult;
+import searchengine.config.SearchConfig;
+import searchengine.dto.search.SearchHits;
 import searchengine.logs.LogTag;
 import searchengine.model.Status;
+import searchengine.services.search.LemmaSuggester;
+import searchengine.services.search.SearchDeadline;
+import searchengine.services.search.SearchResultSink;
 import searchengine.services.serviceinterfaces.SearchService;
 import searchengine.services.util.IndexingContext;
+import searchengine.services.util.SiteStatsRegistry;
 import searchengine.services.util.Stopwatch;
 import java.util.List;
 
@@ -33,6 +38,16 @@ public class SearchServiceImpl implements SearchService {
     */
     private final IndexingContext context;
 
+    /**
+    * Prefix dictionary of the indexed lemmas
+    */
+    private final LemmaSuggester lemmaSuggester;
+
+    /**
+    * Search settings, including the time budget of a request
+    */
+    private final SearchConfig searchConfig;
+
     /**
     * Checks whether the index is ready for search.
     *
@@ -54,28 +69,91 @@ public class SearchServiceImpl implements SearchService {
 
     /**
     * Performs a search in the index using the provided query.
+    * <p>The time budget of the request starts counting here; results cut short by it are marked partial.
     *
     * @param query  the search query
     * @param url    the website URL to limit the search scope (may be null)
     * @param offset the pagination offset
     * @param limit  the number of results to return
-    * @return a list of search results {@link SearchResult}
+    * @return search results with the total number of matches {@link SearchHits}
     * @throws IllegalStateException if the index is not yet ready
     */
     @Override
-    public List<SearchResult> search(String query, String url, int offset, int limit) throws IllegalStateException{
+    public SearchHits search(String query, String url, int offset, int limit) throws IllegalStateException{
+        checkPaging(offset, limit);
+        SearchDeadline deadline = SearchDeadline.after(searchConfig.getTimeoutMillis());
         if (!isIndexReady(url)) {
             throw new IllegalStateException("The index is not ready yet. Please try again later.");
         }
         log.info("{}  Search started for query '{}' on site '{}'", TAG, query, url);
         stopwatch.start();
-          List<SearchResult> searchResul = context.getLemmaFrequencyService().searchResult(query, url, offset, limit);
+          SearchHits searchResul = context.getLemmaFrequencyService().searchResult(query, url, offset, limit, deadline);
           stopwatch.stop();
           log.info("{}  Search completed in {} seconds.", TAG, stopwatch.getSeconds());
           stopwatch.reset();
           return searchResul;
     }
 
+    /**
+    * Performs a search and streams its results to the sink.
+    * <p>Runs under the same time budget as {@link #search}.
+    *
+    * @param query  the search query
+    * @param url    the website URL to limit the search scope (may be null)
+    * @param offset the pagination offset
+    * @param limit  the number of results to return
+    * @param sink   receives the ranking header and then each result as its snippet is built
+    * @throws IllegalStateException if the index is not yet ready
+    */
+    @Override
+    public void stream(String query, String url, int offset, int limit, SearchResultSink sink) throws IllegalStateException {
+        checkPaging(offset, limit);
+        SearchDeadline deadline = SearchDeadline.after(searchConfig.getTimeoutMillis());
+        if (!isIndexReady(url)) {
+            throw new IllegalStateException("The index is not ready yet. Please try again later.");
+        }
+        log.info("{}  Streaming search started for query '{}' on site '{}'", TAG, query, url);
+        Stopwatch watch = new Stopwatch();
+        watch.start();
+        context.getLemmaFrequencyService().streamResults(query, url, offset, limit, deadline, sink);
+        log.info("{}  Streaming search completed in {} seconds.", TAG, watch.stop());
+    }
+
+    /**
+    * Suggests lemmas starting with the typed prefix.
+    * <p>Answers from memory: sites are resolved through the statistics registry and lemmas
+    * are taken from the per-site dictionaries of the {@link LemmaSuggester}.
+    *
+    * @param prefix the typed prefix
+    * @param site   the site URL (may be null for all sites)
+    * @param limit  the maximum number of suggestions
+    * @return the suggested lemmas, most frequent first
+    */
+    @Override
+    public List<String> suggest(String prefix, String site, int limit) {
+        List<Integer> siteIds = context.getSiteStatsRegistry().getActiveSites().stream()
+                .filter(counters -> site == null || site.isBlank() || site.equals(counters.getUrl()))
+                .map(SiteStatsRegistry.SiteCounters::getSiteId)
+                .toList();
+        return lemmaSuggester.suggest(prefix, siteIds, limit);
+    }
+
+    /**
+    * Checks that the requested slice of results is within the configured bounds.
+    *
+    * @param offset the pagination offset
+    * @param limit  the number of results to return
+    * @throws IllegalArgumentException if the offset or the limit is out of bounds
+    */
+    public void checkPaging(int offset, int limit) {
+        if (offset < 0 || offset > searchConfig.getMaxOffset()) {
+            throw new IllegalArgumentException("Offset must be between 0 and " + searchConfig.getMaxOffset());
+        }
+        if (limit < 1 || limit > searchConfig.getMaxLimit()) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + searchConfig.getMaxLimit());
+        }
+    }
+
     /**
     * Checks whether a specific site has been indexed.
     *
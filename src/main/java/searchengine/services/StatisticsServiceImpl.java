@@ -2,24 +2,32 @@ package searchengine.services;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import searchengine.dto.statistics.DetailedStatisticsItem;
+import searchengine.dto.statistics.SiteCounts;
 import searchengine.dto.statistics.StatisticsData;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.dto.statistics.TotalStatistics;
 import searchengine.logs.LogTag;
-import searchengine.model.SiteEntity;
 import searchengine.services.serviceinterfaces.StatisticsService;
 import searchengine.services.util.IndexingContext;
+import searchengine.services.util.SiteStatsRegistry;
+import searchengine.services.util.SiteStatsRegistry.SiteCounters;
 import searchengine.services.util.Stopwatch;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
  /**
  * Service for generating statistics on website indexing.
  *
  * <p>Provides both aggregated information across all sites and detailed data for each site.
+ * Figures come from the in-memory {@link SiteStatsRegistry}; the built response is cached
+ * until the registry version or the indexing flag changes, so frequent polling does not
+ * touch the database.
  */
 
 @Service
@@ -41,6 +49,11 @@ public class StatisticsServiceImpl implements StatisticsService {
     */
     private final IndexingServiceImpl indexingServiceImp;
 
+    /**
+    * Last built response together with the state it was built from
+    */
+    private volatile CachedStatistics cached;
+
     /**
     * Retrieves the current indexing statistics.
     *
@@ -48,41 +61,84 @@ public class StatisticsServiceImpl implements StatisticsService {
     */
     @Override
     public StatisticsResponse getStatistics() {
-        List<SiteEntity> sites = context.getDataManager().getAllSites();
-        log.info("{}  Generating statistics for {} sites", TAG, sites.size());
+        SiteStatsRegistry registry = context.getSiteStatsRegistry();
+        if (!registry.isLoaded()) {
+            loadRegistry(registry);
+        }
+        long version = registry.getVersion();
+        boolean indexing = indexingServiceImp.isIndexing();
+        CachedStatistics snapshot = cached;
+        if (snapshot != null && snapshot.version() == version && snapshot.indexing() == indexing) {
+            return snapshot.response();
+        }
+        StatisticsResponse response = buildResponse(registry.getActiveSites(), indexing);
+        cached = new CachedStatistics(version, indexing, response);
+        return response;
+    }
+
+    /**
+    * Fills the counters registry as soon as the application is up, before indexing is usually started.
+    */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadRegistry() {
+        loadRegistry(context.getSiteStatsRegistry());
+    }
+
+    /**
+    * Fills the counters registry from the database unless it is already loaded.
+    *
+    * @param registry the counters registry
+    */
+    private synchronized void loadRegistry(SiteStatsRegistry registry) {
+        if (registry.isLoaded()) return;
+        log.info("{}  Loading statistics counters", TAG);
         stopwatch.start();
-        TotalStatistics total = calculateTotal(sites);
-        List<DetailedStatisticsItem> detailed = buildDetailedStatistics(sites);
+        Map<Integer, SiteCounts> counts = context.getDataManager().getSiteCounts();
+        if (counts == null) {
+            stopwatch.reset();
+            log.warn("{}  Statistics counters not loaded, the site data could not be counted", TAG);
+            return;
+        }
+        registry.load(context.getDataManager().getAllSites(), counts);
+        stopwatch.stop();
+        log.info("{}  Statistics counters loaded in {} sec.", TAG, stopwatch.getSeconds());
+        stopwatch.reset();
+    }
 
+    /**
+    * Builds the statistics response from the counters of the live sites.
+    *
+    * @param sites counters of the active sites
+    * @param indexing whether indexing is currently running
+    * @return {@link StatisticsResponse} with the total and detailed statistics
+    */
+    private StatisticsResponse buildResponse(List<SiteCounters> sites, boolean indexing) {
         StatisticsData data = new StatisticsData();
-        data.setTotal(total);
-        data.setDetailed(detailed);
+        data.setTotal(calculateTotal(sites, indexing));
+        data.setDetailed(buildDetailedStatistics(sites));
 
         StatisticsResponse response = new StatisticsResponse();
         response.setStatistics(data);
         response.setResult(true);
-        stopwatch.stop();
-        log.info("{}  Statistics calculation completed in {} sec.", TAG, stopwatch.getSeconds());
-        stopwatch.reset();
+        log.debug("{}  Statistics snapshot rebuilt for {} sites", TAG, sites.size());
         return response;
     }
+
     /**
     * Calculates aggregated statistics across all sites.
     *
-    * @param sites list of sites
+    * @param sites counters of the sites
+    * @param indexing whether indexing is currently running
     * @return {@link TotalStatistics} containing the total number of pages, lemmas, and indexing status
     */
-    private TotalStatistics calculateTotal(List<SiteEntity> sites) {
+    private TotalStatistics calculateTotal(List<SiteCounters> sites, boolean indexing) {
         TotalStatistics total = new TotalStatistics();
         total.setSites(sites.size());
-        total.setIndexing(indexingServiceImp.isIndexing());
+        total.setIndexing(indexing);
 
-        for (SiteEntity site : sites) {
-            int pages = site.getPageEntityList().size();
-            int lemmas = context.getDataManager().getCountLemmasBySite(site);
-
-            total.setPages(total.getPages() + pages);
-            total.setLemmas(total.getLemmas() + lemmas);
+        for (SiteCounters site : sites) {
+            total.setPages(total.getPages() + (int) site.getPages());
+            total.setLemmas(total.getLemmas() + (int) site.getLemmas());
         }
         return total;
     }
@@ -90,13 +146,13 @@ public class StatisticsServiceImpl implements StatisticsService {
     /**
     * Generates detailed statistics for each site.
     *
-    * @param sites list of sites
+    * @param sites counters of the sites
     * @return list of {@link DetailedStatisticsItem} containing information for each site
     */
-    private List<DetailedStatisticsItem> buildDetailedStatistics(List<SiteEntity> sites) {
+    private List<DetailedStatisticsItem> buildDetailedStatistics(List<SiteCounters> sites) {
         List<DetailedStatisticsItem> detailed = new ArrayList<>();
 
-        for (SiteEntity site : sites) {
+        for (SiteCounters site : sites) {
             DetailedStatisticsItem item = mapSiteToStatisticsItem(site);
             detailed.add(item);
         }
@@ -104,24 +160,30 @@ public class StatisticsServiceImpl implements StatisticsService {
     }
 
     /**
-    * Converts a SiteEntity object into a DetailedStatisticsItem.
+    * Converts the counters of a site into a DetailedStatisticsItem.
     *
-    * @param site the site
+    * @param site the site counters
     * @return {@link DetailedStatisticsItem} with detailed information
     */
-    private DetailedStatisticsItem mapSiteToStatisticsItem(SiteEntity site) {
+    private DetailedStatisticsItem mapSiteToStatisticsItem(SiteCounters site) {
         DetailedStatisticsItem item = new DetailedStatisticsItem();
 
         item.setName(site.getName());
         item.setUrl(site.getUrl());
-        item.setStatus(site.getStatus().name());
+        item.setStatus(site.getStatus() == null ? null : site.getStatus().name());
         item.setError(site.getLastError());
-        item.setStatusTime(site.getStatusTime()
+        item.setStatusTime(site.getStatusTime() == null ? 0L : site.getStatusTime()
                 .atZone(ZoneId.systemDefault())
                 .toInstant()
                 .toEpochMilli());
-        item.setPages(site.getPageEntityList().size());
-        item.setLemmas(context.getDataManager().getCountLemmasBySite(site));
+        item.setPages((int) site.getPages());
+        item.setLemmas((int) site.getLemmas());
         return item;
     }
-}
\ No newline at end of file
+
+    /**
+    * Cached statistics response with the registry version and indexing flag it reflects.
+    */
+    private record CachedStatistics(long version, boolean indexing, StatisticsResponse response) {
+    }
+}
@@ -0,0 +1,52 @@
+package searchengine.services.search;
+
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchConfig;
+
+ /**
+ * Okapi BM25 relevance of a lemma on a page.
+ *
+ * <p>Computed at query time from the raw term frequency stored in {@code search_indexes},
+ * the page length and the {@link CorpusStats} of the site, so scores stay consistent when
+ * single pages are reindexed. The parameters {@code k1} and {@code b} come from {@link SearchConfig}.
+ */
+
+@Component
+
+public class Bm25Scorer {
+
+    private final float k1;
+    private final float b;
+
+    public Bm25Scorer(SearchConfig config) {
+        this.k1 = Math.max(0, config.getBm25K1());
+        this.b = Math.min(1, Math.max(0, config.getBm25B()));
+    }
+
+    /**
+    * Inverse document frequency of a lemma.
+    *
+    * @param df number of pages containing the lemma
+    * @param pageCount number of pages of the site
+    * @return the IDF, never negative
+    */
+    public float idf(int df, int pageCount) {
+        int n = Math.max(pageCount, df);
+        return (float) Math.log(1 + (n - df + 0.5) / (df + 0.5));
+    }
+
+    /**
+    * BM25 score of a lemma on a page.
+    *
+    * @param tf number of occurrences of the lemma on the page
+    * @param idf inverse document frequency of the lemma, see {@link #idf(int, int)}
+    * @param length length of the page
+    * @param averageLength average page length of the site
+    * @return the score
+    */
+    public float score(float tf, float idf, float length, float averageLength) {
+        if (tf <= 0) return 0;
+        float norm = k1 * (1 - b + b * length / averageLength);
+        return idf * tf * (k1 + 1) / (tf + norm);
+    }
+}
@@ -0,0 +1,228 @@
+package searchengine.services.search;
+
+import java.util.*;
+
+ /**
+ * Immutable prefix completion dictionary of the lemmas of one site.
+ *
+ * <p>Lemmas are sorted and packed into a single {@code char[]} with an offset table, so the
+ * entries sharing a prefix form one contiguous range found by binary search. For prefixes whose
+ * range is longer than {@link #SCAN_LIMIT} entries the best completions are precomputed while
+ * building; any other range is short enough to be scanned. A lookup therefore touches at most
+ * {@code O(log n + SCAN_LIMIT)} entries.
+ */
+
+public final class CompletionIndex {
+
+    /**
+    * Maximum number of completions returned by one lookup
+    */
+    public static final int MAX_COMPLETIONS = 10;
+
+    /**
+    * Longest prefix range scanned at lookup time
+    */
+    private static final int SCAN_LIMIT = 256;
+
+    public static final CompletionIndex EMPTY = build(List.of(), new int[0]);
+
+    /**
+    * Characters of all lemmas in sorted order
+    */
+    private final char[] chars;
+
+    /**
+    * Start of each lemma in {@link #chars}; the last element is the total length
+    */
+    private final int[] offsets;
+
+    /**
+    * Weight of each lemma in sorted order
+    */
+    private final int[] weights;
+
+    /**
+    * Best entries, by weight, of the prefixes with long ranges
+    */
+    private final Map<String, int[]> precomputed;
+
+    private CompletionIndex(char[] chars, int[] offsets, int[] weights, Map<String, int[]> precomputed) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.weights = weights;
+        this.precomputed = precomputed;
+    }
+
+    /**
+    * Builds the dictionary.
+    *
+    * @param lemmas distinct lemmas
+    * @param weights weight of each lemma, in the same order
+    * @return the dictionary
+    */
+    public static CompletionIndex build(List<String> lemmas, int[] weights) {
+        Integer[] order = new Integer[lemmas.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(lemmas::get));
+
+        int[] offsets = new int[order.length + 1];
+        int[] sortedWeights = new int[order.length];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < order.length; i++) {
+            offsets[i] = text.length();
+            text.append(lemmas.get(order[i]));
+            sortedWeights[i] = weights[order[i]];
+        }
+        offsets[order.length] = text.length();
+        char[] chars = new char[text.length()];
+        text.getChars(0, text.length(), chars, 0);
+
+        CompletionIndex index = new CompletionIndex(chars, offsets, sortedWeights, new HashMap<>());
+        index.precompute(0, order.length, 0);
+        return index;
+    }
+
+    /**
+    * Returns the best completions of a prefix.
+    *
+    * @param prefix lowercase prefix
+    * @param limit maximum number of completions, at most {@link #MAX_COMPLETIONS}
+    * @return lemmas starting with the prefix with their weights, best first
+    */
+    public List<Completion> complete(String prefix, int limit) {
+        int count = Math.min(limit, MAX_COMPLETIONS);
+        if (prefix.isEmpty() || count <= 0) return List.of();
+        int from = lowerBound(prefix);
+        int to = upperBound(prefix, from);
+        if (from >= to) return List.of();
+        int[] best = to - from > SCAN_LIMIT ? precomputed.get(prefix) : top(from, to);
+        if (best == null) best = top(from, to);
+        List<Completion> completions = new ArrayList<>(Math.min(count, best.length));
+        for (int i = 0; i < best.length && i < count; i++) {
+            completions.add(new Completion(lemma(best[i]), weights[best[i]]));
+        }
+        return completions;
+    }
+
+    /**
+    * @return number of lemmas in the dictionary
+    */
+    public int size() {
+        return weights.length;
+    }
+
+    /**
+    * @return approximate heap size in bytes
+    */
+    public long memoryBytes() {
+        long precomputedBytes = precomputed.entrySet().stream()
+                .mapToLong(e -> 64 + 2L * e.getKey().length() + 4L * e.getValue().length)
+                .sum();
+        return 2L * chars.length + 4L * offsets.length + 4L * weights.length + precomputedBytes;
+    }
+
+    /**
+    * Stores the best entries of every prefix of length {@code depth + 1} within the range
+    * whose own range is too long to scan, and descends into it.
+    */
+    private void precompute(int from, int to, int depth) {
+        int i = from;
+        while (i < to) {
+            if (length(i) <= depth) {
+                i++;
+                continue;
+            }
+            char c = chars[offsets[i] + depth];
+            int end = i + 1;
+            while (end < to && length(end) > depth && chars[offsets[end] + depth] == c) end++;
+            if (end - i > SCAN_LIMIT) {
+                precomputed.put(new String(chars, offsets[i], depth + 1), top(i, end));
+                precompute(i, end, depth + 1);
+            }
+            i = end;
+        }
+    }
+
+    /**
+    * Selects the entries with the highest weights in a range, best first; ties go to the shorter lemma.
+    */
+    private int[] top(int from, int to) {
+        int[] best = new int[Math.min(MAX_COMPLETIONS, to - from)];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            if (size == best.length && !better(i, best[size - 1])) continue;
+            int pos = size == best.length ? size - 1 : size++;
+            while (pos > 0 && better(i, best[pos - 1])) {
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            best[pos] = i;
+        }
+        return best;
+    }
+
+    private boolean better(int i, int j) {
+        return weights[i] > weights[j] || (weights[i] == weights[j] && length(i) < length(j));
+    }
+
+    /**
+    * @return index of the first lemma not less than the prefix
+    */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = weights.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, prefix) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+    * @return index of the first lemma after {@code from} that does not start with the prefix
+    */
+    private int upperBound(String prefix, int from) {
+        int low = from;
+        int high = weights.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (startsWith(mid, prefix)) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int compare(int index, String prefix) {
+        int start = offsets[index];
+        int length = length(index);
+        for (int i = 0; i < Math.min(length, prefix.length()); i++) {
+            int diff = chars[start + i] - prefix.charAt(i);
+            if (diff != 0) return diff;
+        }
+        return length - prefix.length();
+    }
+
+    private boolean startsWith(int index, String prefix) {
+        if (length(index) < prefix.length()) return false;
+        int start = offsets[index];
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars[start + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private int length(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    private String lemma(int index) {
+        return new String(chars, offsets[index], length(index));
+    }
+
+    /**
+    * A completion with its weight
+    */
+    public record Completion(String lemma, int weight) {
+    }
+}
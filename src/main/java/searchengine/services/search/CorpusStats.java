@@ -0,0 +1,121 @@
+package searchengine.services.search;
+
+import searchengine.dto.search.PageLength;
+import java.util.*;
+
+ /**
+ * Corpus statistics of one site used by BM25: the number of pages, the average page length
+ * and the length of every page.
+ *
+ * <p>Instances are immutable; updates produce a new instance that replaces the old one.
+ * Pages of unknown length (indexed before lengths were stored) are scored with the average length,
+ * which is taken over the pages of known length only.
+ */
+
+public final class CorpusStats {
+
+    public static final CorpusStats EMPTY = new CorpusStats(0, 0, 0, new int[0], new int[0]);
+
+    private final int pageCount;
+
+    /**
+    * Number of pages whose length is known
+    */
+    private final long measuredPages;
+
+    /**
+    * Sum of the lengths of the measured pages
+    */
+    private final long totalTokens;
+
+    /**
+    * Page IDs in ascending order
+    */
+    private final int[] pageIds;
+
+    /**
+    * Page lengths in the order of {@link #pageIds}
+    */
+    private final int[] lengths;
+
+    private CorpusStats(int pageCount, long measuredPages, long totalTokens, int[] pageIds, int[] lengths) {
+        this.pageCount = pageCount;
+        this.measuredPages = measuredPages;
+        this.totalTokens = totalTokens;
+        this.pageIds = pageIds;
+        this.lengths = lengths;
+    }
+
+    /**
+    * @param pageCount number of pages of the site
+    * @param measuredPages number of pages of the site whose length is known
+    * @param totalTokens sum of the lengths of the measured pages
+    * @param pageLengths lengths of the pages that will be scored
+    * @return the statistics
+    */
+    public static CorpusStats of(int pageCount, long measuredPages, long totalTokens, Collection<PageLength> pageLengths) {
+        PageLength[] sorted = pageLengths.stream()
+                .sorted(Comparator.comparingInt(PageLength::getPageId))
+                .toArray(PageLength[]::new);
+        int[] pageIds = new int[sorted.length];
+        int[] lengths = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            pageIds[i] = sorted[i].getPageId();
+            lengths[i] = sorted[i].getTokenCount();
+        }
+        return new CorpusStats(pageCount, measuredPages, totalTokens, pageIds, lengths);
+    }
+
+    /**
+    * Returns statistics with some pages replaced.
+    *
+    * @param pageIds IDs of the changed pages; pages missing from {@code pageLengths} are dropped
+    * @param pageLengths current lengths of the changed pages that still exist
+    * @param pageCount number of pages of the site
+    * @param measuredPages number of pages of the site whose length is known
+    * @param totalTokens sum of the lengths of the measured pages
+    * @return the updated statistics
+    */
+    public CorpusStats withPages(Collection<Integer> pageIds, Collection<PageLength> pageLengths,
+                                 int pageCount, long measuredPages, long totalTokens) {
+        Set<Integer> changed = new HashSet<>(pageIds);
+        List<PageLength> merged = new ArrayList<>(this.pageIds.length + pageLengths.size());
+        for (int i = 0; i < this.pageIds.length; i++) {
+            if (!changed.contains(this.pageIds[i])) {
+                merged.add(new PageLength(this.pageIds[i], lengths[i]));
+            }
+        }
+        merged.addAll(pageLengths);
+        return of(pageCount, measuredPages, totalTokens, merged);
+    }
+
+    /**
+    * @return number of pages of the site
+    */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+    * @return average length of the pages whose length is known, 1 if none is known
+    */
+    public float getAverageLength() {
+        return measuredPages == 0 || totalTokens == 0 ? 1.0f : (float) totalTokens / measuredPages;
+    }
+
+    /**
+    * @param pageId the ID of the page
+    * @return length of the page, or the average length if it is unknown
+    */
+    public float lengthOf(int pageId) {
+        int i = Arrays.binarySearch(pageIds, pageId);
+        return i < 0 || lengths[i] == 0 ? getAverageLength() : lengths[i];
+    }
+
+    /**
+    * @return approximate heap size of the page lengths in bytes
+    */
+    public long memoryBytes() {
+        return 8L * pageIds.length;
+    }
+}
@@ -0,0 +1,103 @@
+package searchengine.services.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.logs.LogTag;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+
+ /**
+ * Coalesces identical queries that are evaluated at the same time (single flight).
+ *
+ * <p>The first request for a query ranks it; requests for the same lemmas, constraints and site
+ * arriving while it runs wait for that ranking instead of evaluating the query again, and then
+ * take their own slice of results from it. Nothing is kept after the ranking completes, so a
+ * burst of identical requests costs one evaluation even with the {@link QueryResultCache} disabled.
+ */
+
+@Component
+@Slf4j
+
+public class InFlightQueries {
+
+    private static final LogTag TAG = LogTag.IN_FLIGHT;
+
+    /**
+    * Rankings being computed, keyed like the query cache
+    */
+    private final Map<QueryResultCache.Key, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+    * Ranks a query, sharing the ranking with identical concurrent requests.
+    * <p>A request that needs more pages than the running ranking keeps evaluates the query on its own.
+    * A waiting request waits no longer than its own deadline allows, and ranks on its own when the shared
+    * ranking was cut short by the deadline of the request that ran it while its own budget is not spent.
+    * A shared ranking is cut down to the pages the waiting request asked for.
+    *
+    * @param lemmas lemmas of the query
+    * @param constraints positional constraints of the query
+    * @param site the site URL, or null for all sites
+    * @param topK number of best pages needed
+    * @param deadline time budget of the calling request
+    * @param ranker evaluates the query for a number of best pages
+    * @return the ranked pages; an empty partial result if the deadline expired while waiting
+    */
+    public RankedPages rank(Collection<String> lemmas, QueryConstraints constraints, String site,
+                            int topK, SearchDeadline deadline, IntFunction<RankedPages> ranker) {
+        QueryResultCache.Key key = QueryResultCache.Key.of(lemmas, constraints, site);
+        Flight own = new Flight(topK, new CompletableFuture<>());
+        Flight running = flights.putIfAbsent(key, own);
+        if (running != null) {
+            if (running.topK() < topK) return ranker.apply(topK);
+            RankedPages shared = await(running, deadline);
+            if (shared == null) return RankedPages.EMPTY.asPartial();
+            if (shared.isPartial() && !deadline.isExpired()) return ranker.apply(topK);
+            log.debug("{}  Query {} answered by a concurrent request", TAG, key.lemmas());
+            return shared.limit(topK);
+        }
+        try {
+            RankedPages pages = ranker.apply(topK);
+            own.result().complete(pages);
+            return pages;
+        } catch (RuntimeException | Error e) {
+            own.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, own);
+        }
+    }
+
+    /**
+    * Waits for a running ranking until the deadline and rethrows its failure as is.
+    *
+    * @return the shared ranking, or null if the deadline expired or the thread was interrupted first
+    */
+    private static RankedPages await(Flight flight, SearchDeadline deadline) {
+        try {
+            return deadline == SearchDeadline.NONE
+                    ? flight.result().get()
+                    : flight.result().get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+    * A ranking in progress and the number of best pages it keeps
+    */
+    private record Flight(int topK, CompletableFuture<RankedPages> result) {
+    }
+}
@@ -0,0 +1,230 @@
+package searchengine.services.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import searchengine.dto.search.IndexPosting;
+import searchengine.dto.search.LemmaInfo;
+import searchengine.dto.search.PageLength;
+import searchengine.dto.search.TokenTotals;
+import searchengine.logs.LogTag;
+import searchengine.model.SiteEntity;
+import searchengine.services.DataManager;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+ /**
+ * In-process inverted index of all active sites used to answer search queries.
+ *
+ * <p>For every site generation a lemma maps to a compressed {@link PostingList} of page IDs
+ * and term frequencies; page lengths are kept alongside for BM25. The index is built from
+ * {@code search_indexes} and {@code pages} when the application starts, rebuilt for a site
+ * after it has been crawled and patched lemma by lemma when a single page is reindexed.
+ * MySQL stays the source of truth: a site that is not loaded here is searched in the database.
+ */
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+
+public class InvertedIndex {
+
+    private static final LogTag TAG = LogTag.INVERTED_INDEX;
+
+    /**
+    * Number of lemma IDs read from the database per query when a site is loaded
+    */
+    private static final int LOAD_CHUNK_SIZE = 5_000;
+
+    private final DataManager dataManager;
+    private final LemmaSuggester lemmaSuggester;
+
+    /**
+    * Loaded sites keyed by site ID
+    */
+    private final Map<Integer, SiteIndex> sites = new ConcurrentHashMap<>();
+
+    /**
+    * Orders suggestion rebuilds, so an older snapshot of a site never replaces a newer one
+    */
+    private final Object suggestionLock = new Object();
+
+    /**
+    * Loads all active sites once the application has started.
+    */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        for (SiteEntity site : dataManager.getAllSites()) {
+            loadSite(site.getId());
+        }
+    }
+
+    /**
+    * Returns the index of a site.
+    *
+    * @param siteId the ID of the site
+    * @return the site index, or null if the site is not loaded
+    */
+    public SiteIndex getSite(int siteId) {
+        return sites.get(siteId);
+    }
+
+    /**
+    * Builds the index of a site from the database and replaces the previous one.
+    * <p>The prefix suggestions of the site are rebuilt from the same lemmas.
+    *
+    * @param siteId the ID of the site
+    * @return true if the site was loaded
+    */
+    public boolean loadSite(int siteId) {
+        long started = System.currentTimeMillis();
+        SiteIndex index = new SiteIndex(siteId);
+        int[] range = dataManager.getLemmaIdRange(siteId);
+        if (range.length == 2) {
+            for (int from = range[0]; from <= range[1]; from += LOAD_CHUNK_SIZE) {
+                int to = (int) Math.min((long) from + LOAD_CHUNK_SIZE - 1, range[1]);
+                List<LemmaInfo> lemmas = dataManager.findLemmaInfosInRange(siteId, from, to);
+                List<IndexPosting> postings = dataManager.findPostingsInLemmaRange(siteId, from, to);
+                if (lemmas == null || postings == null) {
+                    log.warn("{}  Site id={} could not be loaded, searches use the database", TAG, siteId);
+                    sites.remove(siteId);
+                    return false;
+                }
+                addLemmas(index, lemmas, postings);
+            }
+        }
+        List<PageLength> lengths = dataManager.findPageLengthsBySite(siteId);
+        if (lengths == null) {
+            log.warn("{}  Page lengths of site id={} could not be loaded, searches use the database", TAG, siteId);
+            sites.remove(siteId);
+            return false;
+        }
+        long totalTokens = lengths.stream().mapToLong(PageLength::getTokenCount).sum();
+        long measuredPages = lengths.stream().filter(length -> length.getTokenCount() > 0).count();
+        index.setStats(CorpusStats.of(lengths.size(), measuredPages, totalTokens, lengths));
+        sites.put(siteId, index);
+        log.info("{}  Site id={} loaded: {} lemmas, {} KB of postings in {} ms", TAG, siteId,
+                index.lemmaCount(), index.memoryBytes() / 1024, System.currentTimeMillis() - started);
+        replaceSuggestions(index);
+        return true;
+    }
+
+    /**
+    * Reloads lemmas of a loaded site after their postings have changed in the database.
+    * <p>Lemmas that no longer exist are removed, and the suggestions of the site are rebuilt, so a lemma
+    * added by a reindexed page is completed and never corrected away. Does nothing if the site is not loaded.
+    *
+    * @param siteId the ID of the site
+    * @param lemmaIds the IDs of the changed lemmas
+    */
+    public void refreshLemmas(int siteId, Collection<Integer> lemmaIds) {
+        SiteIndex index = sites.get(siteId);
+        if (index == null || lemmaIds.isEmpty()) return;
+        List<LemmaInfo> lemmas = dataManager.findLemmaInfosByIds(lemmaIds);
+        List<IndexPosting> postings = dataManager.findPostings(siteId, lemmaIds);
+        if (lemmas == null || postings == null) {
+            log.warn("{}  Lemmas of site id={} could not be refreshed, searches use the database", TAG, siteId);
+            sites.remove(siteId);
+            return;
+        }
+        List<IndexPosting> sorted = postings.stream()
+                .sorted(Comparator.comparingInt(IndexPosting::getLemmaId).thenComparingInt(IndexPosting::getPageId))
+                .toList();
+        addLemmas(index, lemmas, sorted);
+        Set<Integer> removed = new HashSet<>(lemmaIds);
+        lemmas.forEach(lemma -> removed.remove(lemma.getId()));
+        index.removeAll(removed);
+        replaceSuggestions(index);
+    }
+
+    /**
+    * Updates the page lengths of a loaded site after pages have been saved or removed.
+    * <p>Does nothing if the site is not loaded.
+    *
+    * @param siteId the ID of the site
+    * @param pageIds the IDs of the changed pages
+    */
+    public void refreshPages(int siteId, Collection<Integer> pageIds) {
+        SiteIndex index = sites.get(siteId);
+        if (index == null || pageIds.isEmpty()) return;
+        List<PageLength> lengths = dataManager.findPageLengths(List.copyOf(pageIds));
+        if (lengths == null) {
+            log.warn("{}  Pages of site id={} could not be refreshed, searches use the database", TAG, siteId);
+            sites.remove(siteId);
+            return;
+        }
+        TokenTotals totals = dataManager.getTokenTotalsBySite(siteId);
+        index.setStats(index.getStats().withPages(pageIds, lengths,
+                dataManager.getCountPagesBySite(siteId), totals.getPages(), totals.getTokens()));
+    }
+
+    /**
+    * Drops a site from the index and its suggestions.
+    *
+    * @param siteId the ID of the site
+    */
+    public void removeSite(int siteId) {
+        lemmaSuggester.removeSite(siteId);
+        if (sites.remove(siteId) != null) {
+            log.info("{}  Site id={} removed from the index", TAG, siteId);
+        }
+    }
+
+    /**
+    * Adds lemmas with their postings to a site index.
+    *
+    * @param index the site index
+    * @param lemmas the lemmas to add
+    * @param postings postings of the lemmas ordered by lemma ID and page ID
+    */
+    private void addLemmas(SiteIndex index, List<LemmaInfo> lemmas, List<IndexPosting> postings) {
+        Map<Integer, LemmaInfo> lemmasById = lemmas.stream()
+                .collect(Collectors.toMap(LemmaInfo::getId, Function.identity()));
+        Set<Integer> withPostings = new HashSet<>();
+        int start = 0;
+        while (start < postings.size()) {
+            int lemmaId = postings.get(start).getLemmaId();
+            int end = start;
+            while (end < postings.size() && postings.get(end).getLemmaId() == lemmaId) end++;
+            LemmaInfo lemma = lemmasById.get(lemmaId);
+            if (lemma != null) {
+                int[] pageIds = new int[end - start];
+                float[] ranks = new float[end - start];
+                for (int i = start; i < end; i++) {
+                    pageIds[i - start] = postings.get(i).getPageId();
+                    ranks[i - start] = postings.get(i).getRank();
+                }
+                index.put(toPostings(lemma, PostingList.of(pageIds, ranks)));
+                withPostings.add(lemmaId);
+            }
+            start = end;
+        }
+        for (LemmaInfo lemma : lemmas) {
+            if (!withPostings.contains(lemma.getId())) {
+                index.put(toPostings(lemma, PostingList.EMPTY));
+            }
+        }
+    }
+
+    /**
+    * Rebuilds the suggestions of a site from the lemmas its index holds now.
+    *
+    * @param index the site index
+    */
+    private void replaceSuggestions(SiteIndex index) {
+        synchronized (suggestionLock) {
+            List<LemmaPostings> lemmas = index.all();
+            lemmaSuggester.replaceSite(index.getSiteId(),
+                    lemmas.stream().map(LemmaPostings::getLemma).toList(),
+                    lemmas.stream().mapToInt(LemmaPostings::getFrequency).toArray());
+        }
+    }
+
+    private LemmaPostings toPostings(LemmaInfo lemma, PostingList postings) {
+        return new LemmaPostings(lemma.getId(), lemma.getSiteId(), lemma.getLemma(), lemma.getFrequency(), postings);
+    }
+}
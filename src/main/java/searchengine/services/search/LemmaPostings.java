@@ -0,0 +1,38 @@
+package searchengine.services.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+ /**
+ * A lemma of one site together with the pages it occurs on.
+ */
+
+@Getter
+@AllArgsConstructor
+public class LemmaPostings {
+
+    /**
+    * Identifier of the lemma
+    */
+    private final int lemmaId;
+
+    /**
+    * Identifier of the site the lemma belongs to
+    */
+    private final int siteId;
+
+    /**
+    * Text of the lemma
+    */
+    private final String lemma;
+
+    /**
+    * Frequency of the lemma on the site
+    */
+    private final int frequency;
+
+    /**
+    * Pages containing the lemma
+    */
+    private final PostingList postings;
+}
@@ -0,0 +1,138 @@
+package searchengine.services.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.logs.LogTag;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+ /**
+ * Prefix autocomplete and spelling correction over the lemmas of the indexed sites.
+ *
+ * <p>Every site has its own {@link CompletionIndex} weighted by lemma frequency and its own
+ * {@link SpellingIndex}. The {@link InvertedIndex} builds them from the lemmas it loads or refreshes and
+ * replaces the previous ones in a single map update, so lookups never see a half-built dictionary.
+ */
+
+@Component
+@Slf4j
+
+public class LemmaSuggester {
+
+    private static final LogTag TAG = LogTag.SUGGESTER;
+
+    /**
+    * Dictionaries keyed by site ID
+    */
+    private final Map<Integer, CompletionIndex> sites = new ConcurrentHashMap<>();
+
+    /**
+    * Spelling dictionaries keyed by site ID
+    */
+    private final Map<Integer, SpellingIndex> spelling = new ConcurrentHashMap<>();
+
+    /**
+    * Builds the dictionary of a site and swaps it in.
+    *
+    * @param siteId the ID of the site
+    * @param lemmas distinct lemmas of the site
+    * @param frequencies frequency of each lemma, in the same order
+    */
+    public void replaceSite(int siteId, List<String> lemmas, int[] frequencies) {
+        long started = System.nanoTime();
+        CompletionIndex index = CompletionIndex.build(lemmas, frequencies);
+        SpellingIndex spellingIndex = SpellingIndex.build(lemmas, frequencies);
+        sites.put(siteId, index);
+        spelling.put(siteId, spellingIndex);
+        log.info("{}  Suggestions of site id={} built: {} lemmas, {} KB in {} ms", TAG, siteId, index.size(),
+                (index.memoryBytes() + spellingIndex.memoryBytes()) / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+    * Drops the dictionary of a site.
+    *
+    * @param siteId the ID of the site
+    */
+    public void removeSite(int siteId) {
+        sites.remove(siteId);
+        spelling.remove(siteId);
+    }
+
+    /**
+    * Replaces query lemmas missing from every searched site with the closest known lemma.
+    * <p>Corrections are made only when all searched sites have a dictionary loaded, otherwise
+    * a missing lemma cannot be told from one that is simply not in memory.
+    *
+    * @param lemmas lemmas of the query
+    * @param siteIds the sites being searched
+    * @return corrected lemmas keyed by the original ones, empty if nothing was corrected
+    */
+    public Map<String, String> correct(Collection<String> lemmas, Collection<Integer> siteIds) {
+        if (lemmas.isEmpty() || siteIds.isEmpty()) return Map.of();
+        List<SpellingIndex> indexes = new ArrayList<>(siteIds.size());
+        for (int siteId : siteIds) {
+            SpellingIndex index = spelling.get(siteId);
+            if (index == null) return Map.of();
+            indexes.add(index);
+        }
+        Map<String, String> corrections = new LinkedHashMap<>();
+        for (String lemma : lemmas) {
+            SpellingIndex.Correction best = null;
+            for (SpellingIndex index : indexes) {
+                SpellingIndex.Correction candidate = index.correct(lemma);
+                if (candidate == null) continue;
+                if (candidate.distance() == 0) {
+                    best = null;
+                    break;
+                }
+                if (best == null || candidate.distance() < best.distance()
+                        || (candidate.distance() == best.distance() && candidate.frequency() > best.frequency())) {
+                    best = candidate;
+                }
+            }
+            if (best != null) corrections.put(lemma, best.lemma());
+        }
+        if (!corrections.isEmpty()) log.debug("{}  Query lemmas corrected: {}", TAG, corrections);
+        return corrections;
+    }
+
+    /**
+    * Returns the most frequent lemmas starting with a prefix.
+    * <p>Frequencies of a lemma found on several sites are added up.
+    *
+    * @param prefix the typed prefix
+    * @param siteIds the sites to take lemmas from
+    * @param limit maximum number of suggestions, at most {@link CompletionIndex#MAX_COMPLETIONS}
+    * @return lemmas, most frequent first
+    */
+    public List<String> suggest(String prefix, Collection<Integer> siteIds, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) return List.of();
+        if (siteIds.size() == 1) {
+            CompletionIndex index = sites.get(siteIds.iterator().next());
+            return index == null ? List.of() : index.complete(normalized, limit).stream()
+                    .map(CompletionIndex.Completion::lemma)
+                    .toList();
+        }
+        Map<String, Integer> merged = new HashMap<>();
+        for (int siteId : siteIds) {
+            CompletionIndex index = sites.get(siteId);
+            if (index == null) continue;
+            index.complete(normalized, limit).forEach(c -> merged.merge(c.lemma(), c.weight(), Integer::sum));
+        }
+        return merged.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(e -> e.getKey().length())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(Math.min(limit, CompletionIndex.MAX_COMPLETIONS))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+    * Brings a typed prefix to the form of stored lemmas: lowercase Russian letters.
+    */
+    private static String normalize(String prefix) {
+        return prefix == null ? "" : prefix.strip().toLowerCase(Locale.ROOT).replaceAll("[^а-яё]", "");
+    }
+}
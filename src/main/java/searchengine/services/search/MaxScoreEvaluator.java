@@ -0,0 +1,121 @@
+package searchengine.services.search;
+
+import java.util.*;
+
+ /**
+ * Top-K BM25 evaluation of the pages matching all lemmas of a query with MaxScore pruning.
+ *
+ * <p>An upper bound of every candidate's score is computed first from the block maxima of the
+ * posting lists ({@link PostingList#blockMaxRank}) and the page length, which needs no scoring.
+ * Candidates are then scored in descending order of their bounds: evaluation stops as soon as a
+ * bound falls below the weakest page kept by the {@link TopKCollector}, and scoring of a page
+ * stops once its partial score plus the bounds of its remaining lemmas falls below that threshold.
+ * Lemmas are scored in descending order of their maximum score, so pruning happens early.
+ *
+ * <p>Only pages that cannot reach the threshold are skipped, so ties are resolved as in
+ * exhaustive scoring and the result is the same.
+ */
+
+public final class MaxScoreEvaluator {
+
+    /**
+    * Relative slack added to bounds to absorb float rounding
+    */
+    private static final float BOUND_SLACK = 1e-5f;
+
+    private final Bm25Scorer scorer;
+    private final CorpusStats stats;
+    private final int topK;
+    private int scoredPages;
+
+    /**
+    * @param scorer BM25 scorer
+    * @param stats corpus statistics of the site
+    * @param topK number of best pages to keep
+    */
+    public MaxScoreEvaluator(Bm25Scorer scorer, CorpusStats stats, int topK) {
+        this.scorer = scorer;
+        this.stats = stats;
+        this.topK = topK;
+    }
+
+    /**
+    * Scores the candidate pages and keeps the best ones.
+    *
+    * @param postings posting lists of the query lemmas
+    * @param pageIdLists decoded page IDs of each posting list, in the same order
+    * @param candidates sorted IDs of the pages containing all lemmas
+    * @return the best pages by BM25 score; the total is the number of candidates
+    */
+    public RankedPages evaluate(List<PostingList> postings, List<int[]> pageIdLists, int[] candidates) {
+        int lemmaCount = postings.size();
+        int candidateCount = candidates.length;
+        float averageLength = stats.getAverageLength();
+        float[] idf = new float[lemmaCount];
+        float[] maxScore = new float[lemmaCount];
+        Integer[] order = new Integer[lemmaCount];
+        for (int l = 0; l < lemmaCount; l++) {
+            idf[l] = scorer.idf(pageIdLists.get(l).length, stats.getPageCount());
+            maxScore[l] = scorer.score(postings.get(l).maxRank(), idf[l], 0, averageLength);
+            order[l] = l;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(l -> -maxScore[l]));
+
+        int[][] positions = new int[lemmaCount][candidateCount];
+        float[] lengths = new float[candidateCount];
+        long[] byBound = new long[candidateCount];
+        for (int l = 0; l < lemmaCount; l++) {
+            int[] pageIds = pageIdLists.get(l);
+            int cursor = 0;
+            for (int c = 0; c < candidateCount; c++) {
+                cursor = PostingIntersection.gallop(pageIds, cursor, candidates[c]);
+                positions[l][c] = cursor;
+            }
+        }
+        for (int c = 0; c < candidateCount; c++) {
+            lengths[c] = stats.lengthOf(candidates[c]);
+            float bound = 0;
+            for (int l = 0; l < lemmaCount; l++) {
+                bound += blockBound(postings.get(l), positions[l][c], idf[l], lengths[c], averageLength);
+            }
+            byBound[c] = ((long) Float.floatToIntBits(bound) << 32) | c;
+        }
+        Arrays.sort(byBound);
+
+        TopKCollector collector = new TopKCollector(Math.min(topK, candidateCount));
+        for (int i = candidateCount - 1; i >= 0; i--) {
+            int c = (int) byBound[i];
+            float bound = Float.intBitsToFloat((int) (byBound[i] >>> 32));
+            float threshold = collector.threshold();
+            if (bound * (1 + BOUND_SLACK) < threshold) break;
+
+            scoredPages++;
+            float score = 0;
+            float remaining = bound;
+            boolean pruned = false;
+            for (int l : order) {
+                PostingList list = postings.get(l);
+                int position = positions[l][c];
+                score += scorer.score(list.ranks()[position], idf[l], lengths[c], averageLength);
+                remaining -= blockBound(list, position, idf[l], lengths[c], averageLength);
+                if ((score + Math.max(remaining, 0)) * (1 + BOUND_SLACK) < threshold) {
+                    pruned = true;
+                    break;
+                }
+            }
+            if (!pruned) collector.offer(candidates[c], score);
+        }
+        return collector.toRankedPages(candidateCount);
+    }
+
+    private float blockBound(PostingList list, int position, float idf, float length, float averageLength) {
+        return scorer.score(list.blockMaxRank(position), idf, length, averageLength);
+    }
+
+    /**
+    * @return number of pages whose score was at least partly computed in the last evaluation
+    */
+    public int getScoredPages() {
+        return scoredPages;
+    }
+}
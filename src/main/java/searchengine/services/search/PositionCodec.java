@@ -0,0 +1,68 @@
+package searchengine.services.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+ /**
+ * Compact encoding of ascending word positions as delta-encoded varints.
+ */
+
+public final class PositionCodec {
+
+    /**
+    * Maximum number of positions stored per page and lemma
+    */
+    public static final int MAX_POSITIONS = 20_000;
+
+    private PositionCodec() {
+    }
+
+    /**
+    * Encodes ascending positions; positions beyond {@link #MAX_POSITIONS} are dropped.
+    *
+    * @param positions ascending word positions
+    * @return encoded bytes
+    */
+    public static byte[] encode(List<Integer> positions) {
+        int count = Math.min(positions.size(), MAX_POSITIONS);
+        byte[] buffer = new byte[count * 5];
+        int pos = 0;
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = positions.get(i) - previous;
+            previous = positions.get(i);
+            while ((delta & ~0x7F) != 0) {
+                buffer[pos++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            buffer[pos++] = (byte) delta;
+        }
+        return Arrays.copyOf(buffer, pos);
+    }
+
+    /**
+    * Decodes positions written by {@link #encode(List)}.
+    *
+    * @param data encoded bytes
+    * @return ascending word positions
+    */
+    public static int[] decode(byte[] data) {
+        int[] positions = new int[data.length];
+        int count = 0;
+        int pos = 0;
+        int previous = 0;
+        while (pos < data.length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0 && pos < data.length);
+            previous += delta;
+            positions[count++] = previous;
+        }
+        return Arrays.copyOf(positions, count);
+    }
+}
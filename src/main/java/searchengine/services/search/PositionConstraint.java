@@ -0,0 +1,135 @@
+package searchengine.services.search;
+
+import java.util.*;
+
+ /**
+ * A condition on the word positions of query lemmas on a page: an exact phrase or two words
+ * within a given distance of each other.
+ *
+ * <p>Every term of a constraint is a set of alternative lemmas, since one word may have
+ * several normal forms.
+ */
+
+public final class PositionConstraint {
+
+    private final boolean phrase;
+    private final List<Set<String>> terms;
+
+    /**
+    * Word offset of each term from the first one, used by phrases
+    */
+    private final int[] offsets;
+
+    /**
+    * Maximum distance in words between the two terms, used by NEAR
+    */
+    private final int distance;
+
+    private PositionConstraint(boolean phrase, List<Set<String>> terms, int[] offsets, int distance) {
+        this.phrase = phrase;
+        this.terms = terms;
+        this.offsets = offsets;
+        this.distance = distance;
+    }
+
+    /**
+    * @param terms lemmas of the phrase words in phrase order
+    * @param offsets word offset of each term from the first one
+    * @return constraint requiring the terms at exactly these offsets
+    */
+    public static PositionConstraint phrase(List<Set<String>> terms, int[] offsets) {
+        return new PositionConstraint(true, List.copyOf(terms), offsets.clone(), 0);
+    }
+
+    /**
+    * @param left lemmas of the first word
+    * @param right lemmas of the second word
+    * @param distance maximum distance in words
+    * @return constraint requiring the words within the distance, in any order
+    */
+    public static PositionConstraint near(Set<String> left, Set<String> right, int distance) {
+        return new PositionConstraint(false, List.of(left, right), new int[0], distance);
+    }
+
+    /**
+    * @return all lemmas whose positions are needed to check the constraint
+    */
+    public Set<String> lemmas() {
+        Set<String> lemmas = new HashSet<>();
+        terms.forEach(lemmas::addAll);
+        return lemmas;
+    }
+
+    /**
+    * Checks the constraint against the positions of lemmas on a page.
+    * <p>A lemma mapped to null was indexed without positions; the constraint is then
+    * assumed to hold, since it cannot be checked.
+    *
+    * @param positions ascending word positions by lemma
+    * @return true if the page satisfies the constraint
+    */
+    public boolean matches(Map<String, int[]> positions) {
+        int[][] termPositions = new int[terms.size()][];
+        for (int i = 0; i < terms.size(); i++) {
+            int[] merged = new int[0];
+            boolean found = false;
+            for (String lemma : terms.get(i)) {
+                if (!positions.containsKey(lemma)) continue;
+                int[] lemmaPositions = positions.get(lemma);
+                if (lemmaPositions == null) return true;
+                merged = union(merged, lemmaPositions);
+                found = true;
+            }
+            if (!found) return false;
+            termPositions[i] = merged;
+        }
+        return phrase ? matchesPhrase(termPositions) : matchesNear(termPositions[0], termPositions[1]);
+    }
+
+    private boolean matchesPhrase(int[][] termPositions) {
+        outer:
+        for (int first : termPositions[0]) {
+            int base = first - offsets[0];
+            for (int i = 1; i < termPositions.length; i++) {
+                if (Arrays.binarySearch(termPositions[i], base + offsets[i]) < 0) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean matchesNear(int[] left, int[] right) {
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (Math.abs(left[i] - right[j]) <= distance) return true;
+            if (left[i] < right[j]) i++;
+            else j++;
+        }
+        return false;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length || j < b.length) {
+            int next = j == b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (count == 0 || merged[count - 1] != next) merged[count++] = next;
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(phrase ? "PHRASE(" : "NEAR/" + distance + "(");
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) out.append(' ');
+            if (phrase) out.append(offsets[i]).append(':');
+            out.append(new TreeSet<>(terms.get(i)));
+        }
+        return out.append(')').toString();
+    }
+}
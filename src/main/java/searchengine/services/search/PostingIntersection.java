@@ -0,0 +1,137 @@
+package searchengine.services.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+ /**
+ * Set operations over sorted arrays of page IDs.
+ *
+ * <p>Intersection starts from the shortest list and narrows the candidates with each longer one.
+ * When the lists differ a lot in length the candidates are located in the longer list with
+ * galloping (exponential then binary) search; for lists of similar length a block merge is used
+ * that skips whole blocks by their last element and scans the rest in a tight loop.
+ */
+
+public final class PostingIntersection {
+
+    /**
+    * Length ratio from which galloping search beats a linear merge
+    */
+    private static final int GALLOP_RATIO = 8;
+
+    /**
+    * Block length of the block merge
+    */
+    private static final int BLOCK_SIZE = 64;
+
+    private PostingIntersection() {
+    }
+
+    /**
+    * Intersects several sorted page ID lists, rarest list first.
+    *
+    * @param lists sorted page ID arrays
+    * @return sorted page IDs present in every list
+    */
+    public static int[] intersectAll(List<int[]> lists) {
+        if (lists.isEmpty()) return new int[0];
+        int[][] ordered = lists.toArray(new int[0][]);
+        Arrays.sort(ordered, Comparator.comparingInt(list -> list.length));
+        int[] result = ordered[0];
+        for (int i = 1; i < ordered.length && result.length > 0; i++) {
+            result = intersect(result, ordered[i]);
+        }
+        return result;
+    }
+
+    /**
+    * Intersects two sorted page ID lists.
+    *
+    * @param shorter the shorter list
+    * @param longer the longer list
+    * @return sorted page IDs present in both lists
+    */
+    public static int[] intersect(int[] shorter, int[] longer) {
+        if (shorter.length > longer.length) return intersect(longer, shorter);
+        if (shorter.length == 0) return shorter;
+        return (long) shorter.length * GALLOP_RATIO <= longer.length
+                ? intersectGalloping(shorter, longer)
+                : intersectBlocks(shorter, longer);
+    }
+
+    /**
+    * Intersects by galloping through the longer list for every element of the shorter one.
+    *
+    * @param shorter the shorter list
+    * @param longer the longer list
+    * @return sorted page IDs present in both lists
+    */
+    static int[] intersectGalloping(int[] shorter, int[] longer) {
+        int[] result = new int[shorter.length];
+        int count = 0;
+        int low = 0;
+        for (int value : shorter) {
+            low = gallop(longer, low, value);
+            if (low == longer.length) break;
+            if (longer[low] == value) {
+                result[count++] = value;
+                low++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+    * Intersects two lists of similar length block by block.
+    *
+    * @param first the first list
+    * @param second the second list
+    * @return sorted page IDs present in both lists
+    */
+    static int[] intersectBlocks(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            int blockEnd = Math.min(j + BLOCK_SIZE, second.length) - 1;
+            if (second[blockEnd] < first[i]) {
+                j = blockEnd + 1;
+                continue;
+            }
+            while (i < first.length && j <= blockEnd) {
+                int a = first[i];
+                int b = second[j];
+                if (a == b) {
+                    result[count++] = a;
+                }
+                i += a <= b ? 1 : 0;
+                j += a >= b ? 1 : 0;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+    * Finds the first position not less than the value, starting from {@code from}.
+    *
+    * @param list sorted list
+    * @param from position to start from
+    * @param value the value to find
+    * @return position of the first element not less than the value, or the list length
+    */
+    static int gallop(int[] list, int from, int value) {
+        if (from >= list.length || list[from] >= value) return from;
+        int low = from;
+        int step = 1;
+        int high = from + step;
+        while (high < list.length && list[high] < value) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        int index = Arrays.binarySearch(list, low + 1, Math.min(high, list.length), value);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,174 @@
+package searchengine.services.search;
+
+import java.util.Arrays;
+
+ /**
+ * Immutable list of the pages containing one lemma, sorted by page ID.
+ *
+ * <p>Page IDs are stored as delta-encoded varints (one or two bytes per page for dense sites),
+ * ranks are kept in a parallel float array in the same order. The largest rank of every block of
+ * {@link #BLOCK_SIZE} pages is kept as well, bounding the score any page of the block can reach.
+ */
+
+public final class PostingList {
+
+    /**
+    * Shared instance for lemmas without pages
+    */
+    public static final PostingList EMPTY = new PostingList(0, new byte[0], new float[0], new float[0]);
+
+    /**
+    * Number of pages per block of {@link #blockMaxRanks}
+    */
+    public static final int BLOCK_SIZE = 128;
+
+    /**
+    * Number of pages in the list
+    */
+    private final int size;
+
+    /**
+    * Delta-varint encoded page IDs
+    */
+    private final byte[] encodedPageIds;
+
+    /**
+    * Ranks of the lemma on each page, in page ID order
+    */
+    private final float[] ranks;
+
+    /**
+    * Largest rank of each block of {@link #BLOCK_SIZE} pages
+    */
+    private final float[] blockMaxRanks;
+
+    private PostingList(int size, byte[] encodedPageIds, float[] ranks, float[] blockMaxRanks) {
+        this.size = size;
+        this.encodedPageIds = encodedPageIds;
+        this.ranks = ranks;
+        this.blockMaxRanks = blockMaxRanks;
+    }
+
+    /**
+    * Builds a posting list from parallel arrays of page IDs and ranks.
+    * <p>The arrays are sorted by page ID if needed; they must not be modified afterwards.
+    *
+    * @param pageIds page IDs
+    * @param ranks ranks of the lemma on the pages
+    * @return a compressed posting list
+    */
+    public static PostingList of(int[] pageIds, float[] ranks) {
+        if (pageIds.length != ranks.length) {
+            throw new IllegalArgumentException("Page ids and ranks differ in length");
+        }
+        if (pageIds.length == 0) return EMPTY;
+        if (!isSorted(pageIds)) {
+            sortByPageId(pageIds, ranks);
+        }
+        byte[] buffer = new byte[pageIds.length * 5];
+        int pos = 0;
+        int previous = 0;
+        for (int pageId : pageIds) {
+            int delta = pageId - previous;
+            previous = pageId;
+            while ((delta & ~0x7F) != 0) {
+                buffer[pos++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            buffer[pos++] = (byte) delta;
+        }
+        float[] blockMaxRanks = new float[(ranks.length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        Arrays.fill(blockMaxRanks, Float.NEGATIVE_INFINITY);
+        for (int i = 0; i < ranks.length; i++) {
+            blockMaxRanks[i / BLOCK_SIZE] = Math.max(blockMaxRanks[i / BLOCK_SIZE], ranks[i]);
+        }
+        return new PostingList(pageIds.length, Arrays.copyOf(buffer, pos), ranks, blockMaxRanks);
+    }
+
+    /**
+    * @return number of pages in the list
+    */
+    public int size() {
+        return size;
+    }
+
+    /**
+    * Decodes the page IDs.
+    *
+    * @return a new array of page IDs in ascending order
+    */
+    public int[] pageIds() {
+        int[] pageIds = new int[size];
+        int pos = 0;
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encodedPageIds[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += delta;
+            pageIds[i] = previous;
+        }
+        return pageIds;
+    }
+
+    /**
+    * Returns the ranks in page ID order. The array is shared and must not be modified.
+    *
+    * @return ranks of the lemma on each page
+    */
+    public float[] ranks() {
+        return ranks;
+    }
+
+    /**
+    * Returns the largest rank in the block holding a position.
+    *
+    * @param index position in page ID order
+    * @return the block maximum
+    */
+    public float blockMaxRank(int index) {
+        return blockMaxRanks[index / BLOCK_SIZE];
+    }
+
+    /**
+    * @return the largest rank in the list, 0 for an empty list
+    */
+    public float maxRank() {
+        float max = 0;
+        for (float blockMax : blockMaxRanks) max = Math.max(max, blockMax);
+        return max;
+    }
+
+    /**
+    * @return approximate heap size of the list in bytes
+    */
+    public long memoryBytes() {
+        return encodedPageIds.length + (long) (ranks.length + blockMaxRanks.length) * Float.BYTES;
+    }
+
+    private static boolean isSorted(int[] pageIds) {
+        for (int i = 1; i < pageIds.length; i++) {
+            if (pageIds[i - 1] > pageIds[i]) return false;
+        }
+        return true;
+    }
+
+    private static void sortByPageId(int[] pageIds, float[] ranks) {
+        Integer[] order = new Integer[pageIds.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(pageIds[a], pageIds[b]));
+        int[] sortedIds = new int[pageIds.length];
+        float[] sortedRanks = new float[ranks.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = pageIds[order[i]];
+            sortedRanks[i] = ranks[order[i]];
+        }
+        System.arraycopy(sortedIds, 0, pageIds, 0, pageIds.length);
+        System.arraycopy(sortedRanks, 0, ranks, 0, ranks.length);
+    }
+}
@@ -0,0 +1,122 @@
+package searchengine.services.search;
+
+import searchengine.services.LemmaProcessor;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+ /**
+ * Positional constraints of a search query.
+ *
+ * <p>Supported syntax:
+ * <ul>
+ *   <li>{@code "word word"} or {@code «word word»} — the words must stand next to each other in this order;</li>
+ *   <li>{@code word NEAR word} or {@code word NEAR/k word} — the words must be at most {@code k}
+ *       words apart ({@link #DEFAULT_DISTANCE} by default).</li>
+ * </ul>
+ * Constraints only filter the pages matching all query lemmas; they require stored positions.
+ */
+
+public final class QueryConstraints {
+
+    public static final QueryConstraints NONE = new QueryConstraints(List.of());
+
+    /**
+    * Distance of NEAR without an explicit value
+    */
+    public static final int DEFAULT_DISTANCE = 5;
+
+    /**
+    * Largest distance accepted in NEAR/k
+    */
+    private static final int MAX_DISTANCE = 100;
+
+    private static final Pattern PHRASE = Pattern.compile("\"([^\"]+)\"|«([^»]+)»");
+    private static final Pattern NEAR = Pattern.compile("(\\S+)\\s+NEAR(?:/(\\d{1,3}))?\\s+(?=(\\S+))");
+
+    private final List<PositionConstraint> constraints;
+
+    private QueryConstraints(List<PositionConstraint> constraints) {
+        this.constraints = constraints;
+    }
+
+    /**
+    * Extracts the phrase and NEAR constraints of a query.
+    *
+    * @param query the query as typed
+    * @param lemmaProcessor processor used to lemmatize the constrained words
+    * @return the constraints, or {@link #NONE}
+    */
+    public static QueryConstraints parse(String query, LemmaProcessor lemmaProcessor) {
+        if (query == null || (query.indexOf('"') < 0 && query.indexOf('«') < 0 && !query.contains("NEAR"))) {
+            return NONE;
+        }
+        List<PositionConstraint> constraints = new ArrayList<>();
+        Matcher phrases = PHRASE.matcher(query);
+        while (phrases.find()) {
+            String phrase = phrases.group(1) != null ? phrases.group(1) : phrases.group(2);
+            PositionConstraint constraint = parsePhrase(phrase, lemmaProcessor);
+            if (constraint != null) constraints.add(constraint);
+        }
+        Matcher near = NEAR.matcher(PHRASE.matcher(query).replaceAll(" "));
+        while (near.find()) {
+            Set<String> left = new HashSet<>(lemmaProcessor.getLemmasForSearch(near.group(1)));
+            Set<String> right = new HashSet<>(lemmaProcessor.getLemmasForSearch(near.group(3)));
+            if (left.isEmpty() || right.isEmpty()) continue;
+            int distance = near.group(2) == null ? DEFAULT_DISTANCE
+                    : Math.min(Integer.parseInt(near.group(2)), MAX_DISTANCE);
+            constraints.add(PositionConstraint.near(left, right, Math.max(distance, 1)));
+        }
+        return constraints.isEmpty() ? NONE : new QueryConstraints(List.copyOf(constraints));
+    }
+
+    /**
+    * Builds a phrase constraint from the lemma positions within the phrase.
+    *
+    * @return the constraint, or null if the phrase has fewer than two indexable words
+    */
+    private static PositionConstraint parsePhrase(String phrase, LemmaProcessor lemmaProcessor) {
+        TreeMap<Integer, Set<String>> termsByPosition = new TreeMap<>();
+        lemmaProcessor.getLemmaPositions(phrase).forEach((lemma, positions) ->
+                positions.forEach(position ->
+                        termsByPosition.computeIfAbsent(position, k -> new HashSet<>()).add(lemma)));
+        if (termsByPosition.size() < 2) return null;
+        int first = termsByPosition.firstKey();
+        int[] offsets = termsByPosition.keySet().stream().mapToInt(position -> position - first).toArray();
+        return PositionConstraint.phrase(new ArrayList<>(termsByPosition.values()), offsets);
+    }
+
+    /**
+    * @return true if the query has no positional constraints
+    */
+    public boolean isEmpty() {
+        return constraints.isEmpty();
+    }
+
+    /**
+    * @return all lemmas whose positions are needed to check the constraints
+    */
+    public Set<String> lemmas() {
+        Set<String> lemmas = new HashSet<>();
+        constraints.forEach(constraint -> lemmas.addAll(constraint.lemmas()));
+        return lemmas;
+    }
+
+    /**
+    * @param positions ascending word positions of lemmas on a page, null for lemmas indexed without positions
+    * @return true if the page satisfies all constraints
+    */
+    public boolean matches(Map<String, int[]> positions) {
+        for (PositionConstraint constraint : constraints) {
+            if (!constraint.matches(positions)) return false;
+        }
+        return true;
+    }
+
+    /**
+    * @return stable text form of the constraints, used in cache keys
+    */
+    public String getSignature() {
+        return constraints.stream().map(PositionConstraint::toString).sorted().toList().toString();
+    }
+}
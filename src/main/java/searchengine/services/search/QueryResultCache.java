@@ -0,0 +1,192 @@
+package searchengine.services.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchConfig;
+import searchengine.logs.LogTag;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+ /**
+ * Bounded cache of ranked query results.
+ *
+ * <p>Entries are keyed by the sorted set of query lemmas, the positional constraints and the site, and hold the ranked page IDs
+ * and scores, not rendered snippets. The cache is limited in size (least recently used entries are
+ * evicted) and in time. Every index update bumps a generation counter that invalidates all entries,
+ * so a result is never served across a change of the index.
+ *
+ * <p>Hit ratio is logged periodically.
+ */
+
+@Component
+@Slf4j
+
+public class QueryResultCache {
+
+    private static final LogTag TAG = LogTag.QUERY_CACHE;
+
+    /**
+    * Interval between hit ratio reports
+    */
+    private static final long REPORT_INTERVAL_SECONDS = 60;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    /**
+    * Index generation, incremented on every index update
+    */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+    * Lookups already included in the last report
+    */
+    private long reportedLookups = 0;
+
+    /**
+    * Entries in access order, guarded by its own monitor
+    */
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+
+    public QueryResultCache(SearchConfig config) {
+        this.maxEntries = Math.max(0, config.getCacheSize());
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(config.getCacheTtlSeconds());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @PostConstruct
+    private void init() {
+        reporter.scheduleWithFixedDelay(this::report, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+    * Stops the hit ratio reporter on shutdown.
+    */
+    @PreDestroy
+    public void shutdown() {
+        reporter.shutdown();
+    }
+
+    /**
+    * Returns the current index generation.
+    * <p>Read it before evaluating a query and pass it to {@link #put}.
+    *
+    * @return the index generation
+    */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+    * Invalidates all cached results after the index has changed.
+    */
+    public void invalidate() {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+    * Looks up a cached result that holds at least {@code topK} pages or all matching pages.
+    *
+    * @param lemmas lemmas of the query
+    * @param constraints positional constraints of the query
+    * @param site the site URL, or null for all sites
+    * @param topK number of best pages needed
+    * @return the cached result, or null on a miss
+    */
+    public RankedPages get(Collection<String> lemmas, QueryConstraints constraints, String site, int topK) {
+        if (maxEntries == 0) return null;
+        Key key = Key.of(lemmas, constraints, site);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null
+                || entry.generation() != generation.get()
+                || entry.expiresAt() < System.currentTimeMillis()
+                || (entry.pages().size() < topK && entry.pages().size() < entry.pages().getTotalHits())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.pages();
+    }
+
+    /**
+    * Stores a result unless the index has changed while it was being computed.
+    *
+    * @param lemmas lemmas of the query
+    * @param constraints positional constraints of the query
+    * @param site the site URL, or null for all sites
+    * @param generationAtStart index generation read before the query was evaluated
+    * @param pages the ranked pages
+    */
+    public void put(Collection<String> lemmas, QueryConstraints constraints, String site,
+                    long generationAtStart, RankedPages pages) {
+        if (maxEntries == 0 || generationAtStart != generation.get()) return;
+        Entry entry = new Entry(generationAtStart, System.currentTimeMillis() + ttlMillis, pages);
+        synchronized (entries) {
+            entries.put(Key.of(lemmas, constraints, site), entry);
+        }
+    }
+
+    /**
+    * @return share of lookups answered from the cache, from 0 to 1
+    */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+    * Logs the hit ratio if there were lookups since the last report.
+    */
+    private void report() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        if (lookups == reportedLookups) return;
+        reportedLookups = lookups;
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        log.info("{}  Hit ratio {}% ({} hits of {} lookups), {} entries, generation {}", TAG,
+                String.format("%.1f", getHitRatio() * 100), hitCount, lookups, size, generation.get());
+    }
+
+    /**
+    * Cache key: sorted distinct lemmas, the signature of the positional constraints and the site URL.
+    * <p>Also identifies the queries shared by {@link InFlightQueries}.
+    */
+    record Key(List<String> lemmas, String constraints, String site) {
+        static Key of(Collection<String> lemmas, QueryConstraints constraints, String site) {
+            List<String> sorted = lemmas.stream().distinct().sorted().toList();
+            return new Key(sorted, constraints.getSignature(), site == null || site.isBlank() ? "" : site);
+        }
+    }
+
+    /**
+    * Cached result with the generation it was computed for and its expiry time
+    */
+    private record Entry(long generation, long expiresAt, RankedPages pages) {
+    }
+}
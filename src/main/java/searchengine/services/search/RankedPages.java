@@ -0,0 +1,92 @@
+package searchengine.services.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.Arrays;
+import java.util.List;
+
+ /**
+ * Best-scoring pages of a query, ordered from the highest score down.
+ *
+ * <p>Holds at most the requested number of pages together with the total number of
+ * pages that matched the query. A partial result was cut short by the {@link SearchDeadline}.
+ */
+
+@Getter
+@AllArgsConstructor
+public class RankedPages {
+
+    /**
+    * Result without matches
+    */
+    public static final RankedPages EMPTY = new RankedPages(new int[0], new float[0], 0);
+
+    /**
+    * Page IDs, best first
+    */
+    private final int[] pageIds;
+
+    /**
+    * Scores of the pages in the same order
+    */
+    private final float[] scores;
+
+    /**
+    * Number of pages matching the query
+    */
+    private final int totalHits;
+
+    /**
+    * Whether some of the work was skipped because the deadline expired
+    */
+    private final boolean partial;
+
+    public RankedPages(int[] pageIds, float[] scores, int totalHits) {
+        this(pageIds, scores, totalHits, false);
+    }
+
+    /**
+    * @return number of ranked pages held
+    */
+    public int size() {
+        return pageIds.length;
+    }
+
+    /**
+    * @return the same pages marked as a partial result
+    */
+    public RankedPages asPartial() {
+        return partial ? this : new RankedPages(pageIds, scores, totalHits, true);
+    }
+
+    /**
+    * @param limit maximum number of pages to keep
+    * @return the best {@code limit} pages with the same hit count and partial flag
+    */
+    public RankedPages limit(int limit) {
+        if (pageIds.length <= limit) return this;
+        return new RankedPages(Arrays.copyOf(pageIds, limit), Arrays.copyOf(scores, limit), totalHits, partial);
+    }
+
+    /**
+    * Merges ranked pages of several sites into one list.
+    *
+    * @param parts ranked pages of each site
+    * @param limit maximum number of pages to keep
+    * @return the best pages of all parts and the sum of their hit counts, partial if any part is
+    */
+    public static RankedPages merge(List<RankedPages> parts, int limit) {
+        TopKCollector collector = new TopKCollector(Math.min(limit, parts.stream().mapToInt(RankedPages::size).sum()));
+        int totalHits = 0;
+        boolean partial = false;
+        for (RankedPages part : parts) {
+            for (int i = 0; i < part.size(); i++) {
+                collector.offer(part.pageIds[i], part.scores[i]);
+            }
+            totalHits += part.totalHits;
+            partial |= part.partial;
+        }
+        RankedPages merged = collector.toRankedPages(totalHits);
+        return partial ? merged.asPartial() : merged;
+    }
+}
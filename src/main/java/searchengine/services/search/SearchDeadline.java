@@ -0,0 +1,49 @@
+package searchengine.services.search;
+
+ /**
+ * Time budget of one search request.
+ *
+ * <p>Evaluation checks it between phases and before every site; once it has expired the remaining
+ * work is skipped and the result is marked partial ({@link RankedPages#isPartial()}).
+ */
+
+public final class SearchDeadline {
+
+    /**
+    * Deadline that never expires
+    */
+    public static final SearchDeadline NONE = new SearchDeadline(0);
+
+    /**
+    * Expiry time in {@link System#nanoTime()} units, unused for {@link #NONE}
+    */
+    private final long expiresAt;
+
+    private SearchDeadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+    * Creates a deadline counting from now.
+    *
+    * @param millis the budget in milliseconds, 0 or less for no deadline
+    * @return the deadline
+    */
+    public static SearchDeadline after(long millis) {
+        return millis <= 0 ? NONE : new SearchDeadline(System.nanoTime() + millis * 1_000_000);
+    }
+
+    /**
+    * @return true once the budget has run out
+    */
+    public boolean isExpired() {
+        return this != NONE && System.nanoTime() - expiresAt >= 0;
+    }
+
+    /**
+    * @return nanoseconds left before expiry, 0 once expired; {@link Long#MAX_VALUE} for {@link #NONE}
+    */
+    public long remainingNanos() {
+        return this == NONE ? Long.MAX_VALUE : Math.max(0, expiresAt - System.nanoTime());
+    }
+}
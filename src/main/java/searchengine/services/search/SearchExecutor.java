@@ -0,0 +1,70 @@
+package searchengine.services.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchConfig;
+import searchengine.logs.LogTag;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+ /**
+ * Bounded thread pool for evaluating search queries site by site.
+ *
+ * <p>The pool has a fixed number of threads and a bounded queue; when both are busy the
+ * requesting thread runs the task itself, so a burst of queries cannot pile up unbounded work.
+ */
+
+@Component
+@Slf4j
+
+public class SearchExecutor {
+
+    private static final LogTag TAG = LogTag.SEARCH_EXECUTOR;
+
+    private final ExecutorService executor;
+
+    public SearchExecutor(SearchConfig config) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                config.getThreads(),
+                config.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "search-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+    * Runs the tasks on the pool and waits for all of them.
+    * <p>A task that fails contributes the fallback value.
+    *
+    * @param tasks the tasks to run
+    * @param fallback the value used for a failed task
+    * @return results in the order of the tasks
+    */
+    public <T> List<T> invokeAll(List<Supplier<T>> tasks, T fallback) {
+        List<CompletableFuture<T>> futures = tasks.stream()
+                .map(task -> CompletableFuture.supplyAsync(task, executor)
+                        .exceptionally(e -> {
+                            log.error("{}  Search task failed: {}", TAG, e.getMessage(), e);
+                            return fallback;
+                        }))
+                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+    * Stops the pool when the application shuts down.
+    */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,30 @@
+package searchengine.services.search;
+
+import searchengine.dto.search.SearchResult;
+import java.util.Map;
+
+ /**
+ * Receiver of search results as they are produced.
+ *
+ * <p>{@link #header} is called once, as soon as the query has been ranked, and is followed by
+ * one {@link #result} call per result in display order.
+ */
+
+public interface SearchResultSink {
+
+    /**
+    * Receives the outcome of ranking before any result is built.
+    *
+    * @param total number of pages matching the query
+    * @param corrections corrected lemmas keyed by the lemmas of the query
+    * @param partial whether the search deadline cut the ranking short
+    */
+    void header(int total, Map<String, String> corrections, boolean partial);
+
+    /**
+    * Receives the next result with its snippet.
+    *
+    * @param result the result
+    */
+    void result(SearchResult result);
+}
@@ -0,0 +1,103 @@
+package searchengine.services.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+ /**
+ * In-memory inverted index of one site generation.
+ *
+ * <p>Maps lemma text to its {@link LemmaPostings}. Entries are replaced as a whole when
+ * the indexing pipeline changes a lemma, so readers always see a consistent posting list.
+ * The {@link CorpusStats} of the site are kept alongside for BM25 scoring.
+ */
+
+@RequiredArgsConstructor
+public class SiteIndex {
+
+    /**
+    * Identifier of the site generation
+    */
+    @Getter
+    private final int siteId;
+
+    /**
+    * Lemmas of the site keyed by text
+    */
+    private final Map<String, LemmaPostings> lemmas = new ConcurrentHashMap<>();
+
+    /**
+    * Page count and page lengths of the site
+    */
+    @Getter
+    private volatile CorpusStats stats = CorpusStats.EMPTY;
+
+    /**
+    * Finds the postings of the given lemmas present on the site.
+    *
+    * @param names lemma texts
+    * @return postings of the lemmas found on the site
+    */
+    public List<LemmaPostings> find(Collection<String> names) {
+        List<LemmaPostings> found = new ArrayList<>(names.size());
+        for (String name : names) {
+            LemmaPostings postings = lemmas.get(name);
+            if (postings != null) {
+                found.add(postings);
+            }
+        }
+        return found;
+    }
+
+    /**
+    * @return a snapshot of all lemmas of the site
+    */
+    List<LemmaPostings> all() {
+        return new ArrayList<>(lemmas.values());
+    }
+
+    /**
+    * Adds or replaces a lemma.
+    *
+    * @param postings the lemma with its postings
+    */
+    void put(LemmaPostings postings) {
+        lemmas.put(postings.getLemma(), postings);
+    }
+
+    /**
+    * Removes lemmas by their IDs.
+    *
+    * @param lemmaIds identifiers of the lemmas to remove
+    */
+    void removeAll(Set<Integer> lemmaIds) {
+        lemmas.values().removeIf(postings -> lemmaIds.contains(postings.getLemmaId()));
+    }
+
+    void setStats(CorpusStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+    * @return number of pages of the site, used for the frequent lemma cutoff
+    */
+    public int getPageCount() {
+        return stats.getPageCount();
+    }
+
+    /**
+    * @return number of lemmas in the index
+    */
+    public int lemmaCount() {
+        return lemmas.size();
+    }
+
+    /**
+    * @return approximate heap size of the posting lists and page lengths in bytes
+    */
+    public long memoryBytes() {
+        return stats.memoryBytes()
+                + lemmas.values().stream().mapToLong(postings -> postings.getPostings().memoryBytes()).sum();
+    }
+}
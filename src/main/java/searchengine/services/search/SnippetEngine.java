@@ -0,0 +1,257 @@
+package searchengine.services.search;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.lucene.morphology.WrongCharaterException;
+import org.springframework.stereotype.Component;
+import searchengine.services.util.LemmaFilter;
+import java.util.*;
+
+ /**
+ * Builds search result snippets from the plain text of pages.
+ *
+ * <p>Query words are matched by lemma, so inflected forms are highlighted as well. The snippet
+ * is the window of text with the most distinct query lemmas (then the most matches). Matchers
+ * are compiled once per query and kept in a small cache. When word positions of the query
+ * lemmas are stored, the densest word window is known in advance and only that part of the
+ * text is scanned.
+ */
+
+@Component
+@RequiredArgsConstructor
+
+public class SnippetEngine {
+
+    /**
+    * Length of the snippet window in characters
+    */
+    private static final int SNIPPET_LENGTH = 240;
+
+    /**
+    * Number of compiled matchers kept for repeated queries
+    */
+    private static final int MATCHER_CACHE_SIZE = 256;
+
+    /**
+    * Length of the word window searched for the densest cluster of query lemmas
+    */
+    private static final int WINDOW_WORDS = 30;
+
+    private final LemmaFilter lemmaFilter;
+
+    private final Map<String, SnippetMatcher> matchers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SnippetMatcher> eldest) {
+            return size() > MATCHER_CACHE_SIZE;
+        }
+    };
+
+    /**
+    * Returns the matcher for a query, compiling it on first use.
+    *
+    * @param lemmas lemmas of the query
+    * @param query the query as typed
+    * @return the matcher
+    */
+    public SnippetMatcher matcherFor(List<String> lemmas, String query) {
+        List<String> words = Arrays.stream(query.toLowerCase().split("[^\\p{L}]+"))
+                .filter(word -> word.length() > 1)
+                .distinct()
+                .sorted()
+                .toList();
+        String key = lemmas.stream().sorted().toList() + "|" + words;
+        synchronized (matchers) {
+            return matchers.computeIfAbsent(key, k -> new SnippetMatcher(lemmas, words, this::normalForms));
+        }
+    }
+
+    /**
+    * Builds a snippet with the query words highlighted in bold.
+    *
+    * @param text plain text of the page
+    * @param matcher matcher of the query
+    * @return HTML snippet
+    */
+    public String snippet(String text, SnippetMatcher matcher) {
+        return snippet(text, matcher, null);
+    }
+
+    /**
+    * Builds a snippet around a known word window, scanning only that part of the text.
+    * <p>Falls back to scanning the whole text if the window is unknown or holds no match.
+    *
+    * @param text plain text of the page
+    * @param matcher matcher of the query
+    * @param wordWindow {first, last} word positions of the densest window, or null
+    * @return HTML snippet
+    */
+    public String snippet(String text, SnippetMatcher matcher, int[] wordWindow) {
+        if (text == null || text.isBlank()) return "";
+        int[] range = wordWindow == null ? null : charRange(text, wordWindow[0], wordWindow[1]);
+        List<int[]> matches = range == null ? List.of() : matcher.find(text, range[0], range[1]);
+        int[] window;
+        if (matches.isEmpty()) {
+            matches = matcher.find(text);
+            window = bestWindow(text, matches, matcher.lemmaCount());
+        } else {
+            window = bestWindow(text, matches, matcher.lemmaCount());
+            matches = matcher.find(text, window[0], window[1]);
+        }
+        int start = window[0];
+        int end = window[1];
+
+        StringBuilder snippet = new StringBuilder(end - start + 64);
+        if (start > 0) snippet.append("...");
+        int pos = start;
+        for (int[] match : matches) {
+            if (match[0] < start || match[1] > end) continue;
+            appendEscaped(snippet, text, pos, match[0]);
+            snippet.append("<b>");
+            appendEscaped(snippet, text, match[0], match[1]);
+            snippet.append("</b>");
+            pos = match[1];
+        }
+        appendEscaped(snippet, text, pos, end);
+        if (end < text.length()) snippet.append("...");
+        return snippet.toString();
+    }
+
+    /**
+    * Finds the window of {@link #WINDOW_WORDS} words with the most distinct query lemmas, then the most occurrences.
+    *
+    * @param positions ascending word positions of each query lemma on the page
+    * @return {first, last} word positions of the matches in the window, or null if there are none
+    */
+    public int[] densestWindow(List<int[]> positions) {
+        int total = positions.stream().mapToInt(p -> p.length).sum();
+        if (total == 0) return null;
+        long[] occurrences = new long[total];
+        int count = 0;
+        for (int lemma = 0; lemma < positions.size(); lemma++) {
+            for (int position : positions.get(lemma)) {
+                occurrences[count++] = ((long) position << 32) | lemma;
+            }
+        }
+        Arrays.sort(occurrences);
+        int[] counts = new int[positions.size()];
+        int distinct = 0;
+        int bestScore = -1;
+        int[] best = null;
+        int first = 0;
+        for (int last = 0; last < total; last++) {
+            if (counts[(int) occurrences[last]]++ == 0) distinct++;
+            while ((occurrences[last] >> 32) - (occurrences[first] >> 32) >= WINDOW_WORDS) {
+                if (--counts[(int) occurrences[first]] == 0) distinct--;
+                first++;
+            }
+            int score = distinct * total + (last - first + 1);
+            if (score > bestScore) {
+                bestScore = score;
+                best = new int[]{(int) (occurrences[first] >> 32), (int) (occurrences[last] >> 32)};
+            }
+        }
+        return best;
+    }
+
+    /**
+    * Maps word positions to character offsets; words are the whitespace-separated tokens of the text.
+    *
+    * @return {start, end} of the words in the text, or null if the text has fewer words
+    */
+    private static int[] charRange(String text, int firstWord, int lastWord) {
+        int length = text.length();
+        int pos = 0;
+        int word = -1;
+        int start = -1;
+        while (pos < length) {
+            while (pos < length && isSpace(text.charAt(pos))) pos++;
+            if (pos == length) break;
+            word++;
+            int wordStart = pos;
+            while (pos < length && !isSpace(text.charAt(pos))) pos++;
+            if (word == firstWord) start = wordStart;
+            if (word == lastWord) return new int[]{start, pos};
+        }
+        return null;
+    }
+
+    /**
+    * Whitespace as matched by {@code \s}, the separator of word positions
+    */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+    * Chooses the window with the most distinct lemmas, then the most matches.
+    *
+    * @return {start, end} of the window, aligned to word boundaries
+    */
+    private int[] bestWindow(String text, List<int[]> matches, int lemmaCount) {
+        if (matches.isEmpty()) {
+            return new int[]{0, alignEnd(text, Math.min(text.length(), SNIPPET_LENGTH), 0)};
+        }
+        int[] counts = new int[lemmaCount];
+        int distinct = 0;
+        int bestScore = -1;
+        int bestFirst = 0;
+        int bestLast = 0;
+        int first = 0;
+        for (int last = 0; last < matches.size(); last++) {
+            if (counts[matches.get(last)[2]]++ == 0) distinct++;
+            while (matches.get(last)[1] - matches.get(first)[0] > SNIPPET_LENGTH) {
+                if (--counts[matches.get(first)[2]] == 0) distinct--;
+                first++;
+            }
+            int score = distinct * matches.size() + (last - first + 1);
+            if (score > bestScore) {
+                bestScore = score;
+                bestFirst = first;
+                bestLast = last;
+            }
+        }
+        int spanStart = matches.get(bestFirst)[0];
+        int spanEnd = matches.get(bestLast)[1];
+        int padding = Math.max(0, SNIPPET_LENGTH - (spanEnd - spanStart)) / 2;
+        int start = alignStart(text, Math.max(0, spanStart - padding), spanStart);
+        int end = alignEnd(text, Math.min(text.length(), Math.max(spanEnd, start + SNIPPET_LENGTH)), spanEnd);
+        return new int[]{start, end};
+    }
+
+    /**
+    * Moves the start forward to the beginning of a word, but not past {@code limit}.
+    */
+    private static int alignStart(String text, int start, int limit) {
+        if (start == 0 || text.charAt(start - 1) == ' ') return start;
+        int space = text.indexOf(' ', start);
+        return space < 0 || space + 1 > limit ? limit : space + 1;
+    }
+
+    /**
+    * Moves the end back to the end of a word, but not before {@code limit}.
+    */
+    private static int alignEnd(String text, int end, int limit) {
+        if (end >= text.length() || text.charAt(end) == ' ') return end;
+        int space = text.lastIndexOf(' ', end);
+        return space < limit ? Math.max(limit, Math.min(end, text.length())) : space;
+    }
+
+    private static void appendEscaped(StringBuilder out, String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private List<String> normalForms(String word) {
+        try {
+            return lemmaFilter.getLuceneMorphology().getNormalForms(lemmaFilter.normalizeRussianWord(word));
+        } catch (WrongCharaterException e) {
+            return List.of();
+        }
+    }
+}
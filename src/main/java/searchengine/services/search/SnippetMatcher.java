@@ -0,0 +1,171 @@
+package searchengine.services.search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+ /**
+ * Finds the words of a text that are forms of the query lemmas.
+ *
+ * <p>Built once per query. The stems of the query lemmas and query words are stored in a trie;
+ * the text is scanned in a single pass and the trie is walked from the start of every word, so
+ * each character is looked at a constant number of times. A word that starts with a stem is only
+ * a candidate: it is confirmed by its normal forms, and the verdict is cached per word form.
+ */
+
+public final class SnippetMatcher {
+
+    /**
+    * Letters of the trie alphabet: а–я and ё
+    */
+    private static final int ALPHABET = 33;
+
+    /**
+    * Shortest stem kept in the trie
+    */
+    private static final int MIN_STEM_LENGTH = 3;
+
+    /**
+    * Number of letters cut from a word to get its stem
+    */
+    private static final int ENDING_LENGTH = 2;
+
+    /**
+    * Upper bound of cached word verdicts
+    */
+    private static final int MAX_CACHED_WORDS = 10_000;
+
+    private final List<String> lemmas;
+    private final Map<String, Integer> lemmaIndexes = new HashMap<>();
+    private final Function<String, List<String>> normalForms;
+
+    /**
+    * Trie transitions: node → letter → child node (0 means none)
+    */
+    private final List<int[]> children = new ArrayList<>();
+
+    /**
+    * Nodes where a stem ends
+    */
+    private final BitSet terminals = new BitSet();
+
+    /**
+    * Lemma index for each verified word form, -1 for words that are not query lemmas
+    */
+    private final Map<String, Integer> verdicts = new ConcurrentHashMap<>();
+
+    /**
+    * @param lemmas lemmas of the query
+    * @param queryWords words of the query as typed
+    * @param normalForms function returning the normal forms of a lowercase word
+    */
+    public SnippetMatcher(List<String> lemmas, Collection<String> queryWords,
+                          Function<String, List<String>> normalForms) {
+        this.lemmas = List.copyOf(lemmas);
+        this.normalForms = normalForms;
+        for (int i = 0; i < this.lemmas.size(); i++) {
+            lemmaIndexes.put(this.lemmas.get(i), i);
+        }
+        children.add(new int[ALPHABET]);
+        lemmas.forEach(this::addStem);
+        queryWords.forEach(this::addStem);
+    }
+
+    /**
+    * @return number of query lemmas
+    */
+    public int lemmaCount() {
+        return lemmas.size();
+    }
+
+    /**
+    * Finds the words of the text that are forms of the query lemmas.
+    *
+    * @param text plain text
+    * @return matches in text order as {start, end, lemma index} triples
+    */
+    public List<int[]> find(String text) {
+        return find(text, 0, text.length());
+    }
+
+    /**
+    * Finds the words of a part of the text that are forms of the query lemmas.
+    *
+    * @param text plain text
+    * @param from start of the part, at a word boundary
+    * @param to end of the part, exclusive
+    * @return matches in text order as {start, end, lemma index} triples
+    */
+    public List<int[]> find(String text, int from, int to) {
+        List<int[]> matches = new ArrayList<>();
+        int length = Math.min(to, text.length());
+        int pos = Math.max(from, 0);
+        while (pos < length) {
+            if (!Character.isLetter(text.charAt(pos))) {
+                pos++;
+                continue;
+            }
+            int start = pos;
+            int node = 0;
+            boolean candidate = false;
+            while (pos < length && Character.isLetter(text.charAt(pos))) {
+                if (node >= 0) {
+                    int letter = letterIndex(Character.toLowerCase(text.charAt(pos)));
+                    node = letter < 0 ? -1 : children.get(node)[letter];
+                    if (node == 0) node = -1;
+                    if (node > 0 && terminals.get(node)) candidate = true;
+                }
+                pos++;
+            }
+            if (candidate) {
+                int lemma = verify(text.substring(start, pos).toLowerCase());
+                if (lemma >= 0) {
+                    matches.add(new int[]{start, pos, lemma});
+                }
+            }
+        }
+        return matches;
+    }
+
+    private int verify(String word) {
+        Integer verdict = verdicts.get(word);
+        if (verdict != null) return verdict;
+        int lemma = -1;
+        for (String form : normalForms.apply(word)) {
+            Integer index = lemmaIndexes.get(form);
+            if (index != null) {
+                lemma = index;
+                break;
+            }
+        }
+        if (verdicts.size() < MAX_CACHED_WORDS) {
+            verdicts.put(word, lemma);
+        }
+        return lemma;
+    }
+
+    private void addStem(String word) {
+        String lower = word.toLowerCase();
+        String stem = lower.length() <= MIN_STEM_LENGTH
+                ? lower
+                : lower.substring(0, Math.max(MIN_STEM_LENGTH, lower.length() - ENDING_LENGTH));
+        int node = 0;
+        for (int i = 0; i < stem.length(); i++) {
+            int letter = letterIndex(stem.charAt(i));
+            if (letter < 0) return;
+            int next = children.get(node)[letter];
+            if (next == 0) {
+                next = children.size();
+                children.add(new int[ALPHABET]);
+                children.get(node)[letter] = next;
+            }
+            node = next;
+        }
+        if (node > 0) terminals.set(node);
+    }
+
+    private static int letterIndex(char c) {
+        if (c >= 'а' && c <= 'я') return c - 'а';
+        return c == 'ё' ? ALPHABET - 1 : -1;
+    }
+}
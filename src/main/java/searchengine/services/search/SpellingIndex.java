@@ -0,0 +1,168 @@
+package searchengine.services.search;
+
+import java.util.*;
+
+ /**
+ * Typo-tolerant lookup of the lemmas of one site with a symmetric delete dictionary (SymSpell).
+ *
+ * <p>Every lemma is indexed under all strings obtained by deleting up to {@link #MAX_DISTANCE}
+ * characters from its first {@link #PREFIX_LENGTH} characters. A misspelled word generates the
+ * same deletes, so candidates within the distance are found by exact lookups, without comparing
+ * the word with the whole dictionary. Deletes are stored as hashes packed with the lemma number
+ * into one sorted {@code long[]}; candidates are verified with the optimal string alignment distance.
+ */
+
+public final class SpellingIndex {
+
+    /**
+    * Largest edit distance corrected
+    */
+    public static final int MAX_DISTANCE = 2;
+
+    /**
+    * Number of leading characters whose deletes are indexed
+    */
+    private static final int PREFIX_LENGTH = 7;
+
+    public static final SpellingIndex EMPTY = build(List.of(), new int[0]);
+
+    private final String[] lemmas;
+    private final int[] frequencies;
+
+    /**
+    * Delete hashes in the high half and lemma numbers in the low half, sorted
+    */
+    private final long[] deletes;
+
+    private SpellingIndex(String[] lemmas, int[] frequencies, long[] deletes) {
+        this.lemmas = lemmas;
+        this.frequencies = frequencies;
+        this.deletes = deletes;
+    }
+
+    /**
+    * Builds the dictionary.
+    *
+    * @param lemmas distinct lemmas
+    * @param frequencies frequency of each lemma, in the same order
+    * @return the dictionary
+    */
+    public static SpellingIndex build(List<String> lemmas, int[] frequencies) {
+        long[] deletes = new long[lemmas.size() * 8];
+        int count = 0;
+        Set<String> variants = new HashSet<>();
+        for (int i = 0; i < lemmas.size(); i++) {
+            variants.clear();
+            collectDeletes(prefix(lemmas.get(i)), MAX_DISTANCE, variants);
+            for (String variant : variants) {
+                if (count == deletes.length) deletes = Arrays.copyOf(deletes, deletes.length * 2);
+                deletes[count++] = pack(variant.hashCode(), i);
+            }
+        }
+        deletes = Arrays.copyOf(deletes, count);
+        Arrays.sort(deletes);
+        return new SpellingIndex(lemmas.toArray(String[]::new), frequencies.clone(), deletes);
+    }
+
+    /**
+    * Finds the closest lemma to a word; among lemmas at the same distance the most frequent wins.
+    *
+    * @param word lowercase word
+    * @return the correction, or null if no lemma is within {@link #MAX_DISTANCE}
+    */
+    public Correction correct(String word) {
+        if (word.isEmpty()) return null;
+        Set<String> variants = new HashSet<>();
+        collectDeletes(prefix(word), MAX_DISTANCE, variants);
+        Set<Integer> checked = new HashSet<>();
+        Correction best = null;
+        for (String variant : variants) {
+            int hash = variant.hashCode();
+            for (int i = firstWithHash(hash); i < deletes.length && (int) (deletes[i] >> 32) == hash; i++) {
+                int lemma = (int) deletes[i];
+                if (!checked.add(lemma)) continue;
+                int distance = distance(word, lemmas[lemma], MAX_DISTANCE);
+                if (distance > MAX_DISTANCE) continue;
+                if (best == null || distance < best.distance()
+                        || (distance == best.distance() && frequencies[lemma] > best.frequency())) {
+                    best = new Correction(lemmas[lemma], distance, frequencies[lemma]);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+    * @return approximate heap size in bytes
+    */
+    public long memoryBytes() {
+        long lemmaBytes = Arrays.stream(lemmas).mapToLong(lemma -> 48 + 2L * lemma.length()).sum();
+        return lemmaBytes + 4L * frequencies.length + 8L * deletes.length;
+    }
+
+    private int firstWithHash(int hash) {
+        int low = 0;
+        int high = deletes.length;
+        long key = pack(hash, 0);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (deletes[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static long pack(int hash, int lemma) {
+        return ((long) hash << 32) | (lemma & 0xFFFFFFFFL);
+    }
+
+    private static String prefix(String word) {
+        return word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+    }
+
+    /**
+    * Adds the word and every string obtained by deleting up to {@code distance} characters from it.
+    */
+    private static void collectDeletes(String word, int distance, Set<String> out) {
+        if (!out.add(word) || distance == 0) return;
+        for (int i = 0; i < word.length(); i++) {
+            collectDeletes(word.substring(0, i) + word.substring(i + 1), distance - 1, out);
+        }
+    }
+
+    /**
+    * Optimal string alignment distance, or {@code max + 1} once it exceeds {@code max}.
+    */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return max + 1;
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) return max + 1;
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    /**
+    * A lemma replacing a misspelled word
+    */
+    public record Correction(String lemma, int distance, int frequency) {
+    }
+}
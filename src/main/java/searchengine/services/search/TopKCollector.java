@@ -0,0 +1,109 @@
+package searchengine.services.search;
+
+ /**
+ * Keeps the {@code k} best-scoring pages offered to it.
+ *
+ * <p>Backed by a bounded min-heap over primitive arrays: the root is the weakest page kept, and a
+ * new page replaces it only if it scores higher. Collecting {@code n} pages costs {@code O(n log k)}
+ * without allocating per page. Ties are broken by page ID, lower IDs first.
+ */
+
+public final class TopKCollector {
+
+    private final int capacity;
+    private final int[] pageIds;
+    private final float[] scores;
+    private int size;
+
+    /**
+    * @param capacity number of pages to keep
+    */
+    public TopKCollector(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.pageIds = new int[this.capacity];
+        this.scores = new float[this.capacity];
+    }
+
+    /**
+    * Offers a page to the collector.
+    *
+    * @param pageId the ID of the page
+    * @param score the score of the page
+    */
+    public void offer(int pageId, float score) {
+        if (size < capacity) {
+            pageIds[size] = pageId;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (capacity > 0 && better(score, pageId, scores[0], pageIds[0])) {
+            pageIds[0] = pageId;
+            scores[0] = score;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+    * Returns the score a page has to beat to enter the collector.
+    *
+    * @return the weakest kept score, or negative infinity while the collector is not full
+    */
+    public float threshold() {
+        return size < capacity || capacity == 0 ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+    * Returns the kept pages best first. The collector must not be used afterwards.
+    *
+    * @param totalHits number of pages that matched the query
+    * @return the ranked pages
+    */
+    public RankedPages toRankedPages(int totalHits) {
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        int[] ids = new int[size];
+        float[] values = new float[size];
+        System.arraycopy(pageIds, 0, ids, 0, size);
+        System.arraycopy(scores, 0, values, 0, size);
+        return new RankedPages(ids, values, totalHits);
+    }
+
+    private static boolean better(float score, int pageId, float otherScore, int otherPageId) {
+        return score > otherScore || (score == otherScore && pageId < otherPageId);
+    }
+
+    private boolean worse(int i, int j) {
+        return better(scores[j], pageIds[j], scores[i], pageIds[i]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(i, parent)) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int end) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= end) break;
+            int right = left + 1;
+            int weakest = right < end && worse(right, left) ? right : left;
+            if (!worse(weakest, i)) break;
+            swap(i, weakest);
+            i = weakest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int id = pageIds[i];
+        pageIds[i] = pageIds[j];
+        pageIds[j] = id;
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
@@ -1,6 +1,7 @@
 package searchengine.services.serviceinterfaces;
 
-import searchengine.dto.search.SearchResult;
+import searchengine.dto.search.SearchHits;
+import searchengine.services.search.SearchResultSink;
 import java.util.List;
 
  /**
@@ -16,8 +17,30 @@ public interface SearchService {
    * @param site    the site URL to limit the search (may be null)
    * @param offset  the result offset (for pagination)
    * @param limit   the maximum number of results
-   * @return a list of {@link SearchResult} objects containing the found results
+   * @return {@link SearchHits} with the found results and the total number of matches
    * @throws IllegalStateException if the search cannot be performed (for example, indexing is not completed)
    */
-   List<SearchResult> search (String query, String site, int offset, int limit) throws IllegalStateException;
+   SearchHits search (String query, String site, int offset, int limit) throws IllegalStateException;
+
+   /**
+   * Performs a search and hands the ranking and then each result to the sink as soon as it is ready.
+   *
+   * @param query   the search query
+   * @param site    the site URL to limit the search (may be null)
+   * @param offset  the result offset (for pagination)
+   * @param limit   the maximum number of results
+   * @param sink    receives the ranking header and the results
+   * @throws IllegalStateException if the search cannot be performed (for example, indexing is not completed)
+   */
+   void stream(String query, String site, int offset, int limit, SearchResultSink sink) throws IllegalStateException;
+
+   /**
+   * Suggests lemmas starting with the typed prefix, most frequent first.
+   *
+   * @param prefix  the typed prefix
+   * @param site    the site URL to take lemmas from (may be null for all sites)
+   * @param limit   the maximum number of suggestions
+   * @return the suggested lemmas
+   */
+   List<String> suggest(String prefix, String site, int limit);
 }
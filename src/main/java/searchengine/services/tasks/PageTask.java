@@ -4,9 +4,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import searchengine.dto.PageResponse;
 import searchengine.logs.LogTag;
+import searchengine.model.PageContentEntity;
 import searchengine.model.PageEntity;
 import searchengine.model.SiteEntity;
 import searchengine.services.util.IndexingContext;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.RecursiveAction;
 
@@ -39,12 +41,17 @@ public class PageTask extends RecursiveAction {
             PageEntity page = context.getEntityFactory().createPageEntity(
                     siteEntity,
                     url,
-                    resp.getStatusCode(),
-                    htmlBody
+                    resp.getStatusCode()
             );
 
-            context.getDataManager().savePage(page);
-            context.getLemmaFrequencyService().savePageLemmasAndIndexesThreadSafe(page, page.getContent());
+            PageContentEntity content = context.getEntityFactory().createPageContentEntity(htmlBody);
+            if (!context.getDataManager().savePage(page, content)) {
+                log.warn("{} Page {} was not saved, it may already exist for the site", TAG, url);
+                return;
+            }
+            context.getSiteStatsRegistry().pageAdded(siteEntity.getId(),
+                    htmlBody.getBytes(StandardCharsets.UTF_8).length);
+            context.getLemmaFrequencyService().savePageLemmasAndIndexesThreadSafe(page, htmlBody);
 
             if (resp.isHtml() && resp.getBody() != null) {
                 List<PageTask> refs = context.getManagerJSOUP()
@@ -9,14 +9,17 @@ import searchengine.model.Status;
 import searchengine.services.util.IndexingContext;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.RecursiveAction;
 import java.util.stream.Collectors;
 
  /**
  * Task for indexing a single site.
  *
- * <p>Saves the default version of the site, retrieves its pages, creates {@link PageTask} instances, 
- * and calculates lemma weights.
+ * <p>Saves the default version of the site, retrieves its pages and creates {@link PageTask} instances.
+ *
+ * <p>If the site already has a live generation and staged reindexing is enabled, the new data is
+ * built into an inactive generation that is swapped in only after the crawl succeeds.
  */
 
 @Slf4j
@@ -25,6 +28,11 @@ import java.util.stream.Collectors;
 public class SiteTask extends RecursiveAction {
 
     private static final LogTag TAG = LogTag.SITE_TASK;
+
+    /**
+    * Error recorded when the crawl is stopped before it completes
+    */
+    private static final String STOPPED_BY_USER = "User stopped the indexing";
     private final Site site;
     private SiteEntity siteEntity;
     private final IndexingContext context;
@@ -36,7 +44,10 @@ public class SiteTask extends RecursiveAction {
 
         if (context.shouldStop("SiteTask-" + site.getUrl())) return;
 
-         siteEntity = context.getEntityFactory().createSiteEntity(site.getName(), site.getUrl());
+         Optional<SiteEntity> liveSite = context.getSites().isStagedReindex()
+                 ? context.getDataManager().findSite(site.getUrl())
+                 : Optional.empty();
+         siteEntity = context.getEntityFactory().createSiteEntity(site.getName(), site.getUrl(), liveSite.isEmpty());
          context.getDataManager().saveSite(siteEntity);
          context.getVisitedUrlStore().activateSite(siteEntity);
 
@@ -45,7 +56,10 @@ public class SiteTask extends RecursiveAction {
 
             List<String> pages = context.getManagerJSOUP().getLinksFromPage(site.getUrl(), site.getUrl());
 
-            if (context.shouldStop("SiteTask-pages-" + site.getUrl())) return;
+            if (context.shouldStop("SiteTask-pages-" + site.getUrl())) {
+                failSite(STOPPED_BY_USER, liveSite);
+                return;
+            }
 
             log.info("{} Found {} internal links on {}", TAG, pages.size(), site.getUrl());
 
@@ -58,32 +72,80 @@ public class SiteTask extends RecursiveAction {
                 invokeAll(pageTasks);
             }
 
+            if (context.shouldStop("SiteTask-finish-" + site.getUrl())) {
+                failSite(STOPPED_BY_USER, liveSite);
+                return;
+            }
+
            boolean hasFailedPages = pageTasks.stream().anyMatch(PageTask::isCompletedAbnormally);
 
             if (hasFailedPages) {
-               failSite("One or more pages finished with errors");
+               failSite("One or more pages finished with errors", liveSite);
            } else {
-                siteEntity.setStatus(Status.INDEXED);
-                siteEntity.setLastError(null);
-                siteEntity.setStatusTime(LocalDateTime.now());
-                context.getDataManager().saveSite(siteEntity);
-                
-                log.info("{} Calculating lemma weights", TAG);
-
-                context.getLemmaFrequencyService().recalculateRankForAllSites(siteEntity);
-                log.info("{} Lemma weight calculation completed", TAG);
+                markIndexed();
+                liveSite.ifPresent(this::swapGeneration);
+                if (siteEntity.isActive()) {
+                    context.getInvertedIndex().loadSite(siteEntity.getId());
+                }
+                context.getQueryResultCache().invalidate();
+                context.getVisitedUrlStore().markSiteFinished(site.getUrl());
             }
 
         }catch (Exception e) {
             log.error("{} Error processing site {}: {}", TAG, site.getUrl(), e.getMessage(), e);
-            failSite(e.getMessage());
+            failSite(e.getMessage(), liveSite);
         }
     }
 
-    private void failSite(String message) {
+    /**
+    * Marks the site as indexed. A staging generation is saved later by the swap.
+    */
+    private void markIndexed() {
+        siteEntity.setStatus(Status.INDEXED);
+        siteEntity.setLastError(null);
+        siteEntity.setStatusTime(LocalDateTime.now());
+        if (siteEntity.isActive()) {
+            context.getDataManager().saveSite(siteEntity);
+        }
+    }
+
+    /**
+    * Makes the freshly built generation live and schedules the old one for removal.
+    *
+    * @param previous the generation that was live while the site was being rebuilt
+    */
+    private void swapGeneration(SiteEntity previous) {
+        if (context.getDataManager().activateGeneration(siteEntity)) {
+            context.getGenerationCleaner().discard(previous.getId());
+        } else {
+            siteEntity.setActive(false);
+            failSite("Failed to activate the new index generation", Optional.of(previous));
+        }
+    }
+
+    /**
+    * Marks the site as failed.
+    * <p>A failed or stopped staging generation is discarded and the error is recorded on the live
+    * generation, which keeps serving searches.
+    *
+    * @param message  the error message
+    * @param liveSite the live generation, if the site is being rebuilt in staging
+    */
+    private void failSite(String message, Optional<SiteEntity> liveSite) {
+        context.getVisitedUrlStore().markSiteFinished(site.getUrl());
+        if (liveSite.isPresent() && !siteEntity.isActive()) {
+            log.warn("{} Reindexing of {} failed, the previous index stays live: {}", TAG, site.getUrl(), message);
+            context.getGenerationCleaner().discard(siteEntity.getId());
+            SiteEntity live = liveSite.get();
+            live.setLastError("Reindexing failed: " + message);
+            live.setStatusTime(LocalDateTime.now());
+            context.getDataManager().saveSite(live);
+            return;
+        }
         siteEntity.setStatus(Status.FAILED);
         siteEntity.setLastError(message);
         siteEntity.setStatusTime(LocalDateTime.now());
         context.getDataManager().saveSite(siteEntity);
+        context.getQueryResultCache().invalidate();
     }
 }
@@ -12,7 +12,9 @@ import java.util.concurrent.RecursiveAction;
  * Root task for indexing all sites.
  *
  * <p>Uses a ForkJoinPool for parallel site processing.
- * Deletes old sites before reindexing and creates {@link SiteTask} instances for each site.
+ * Purges old site data with bulk deletes before reindexing and creates {@link SiteTask} instances for each site.
+ * In staged reindex mode the live data is kept and only leftover staging generations are purged.
+ * Table partitions for new sites are reserved before the crawl, and partition drops wait until it ends.
  */
 
 @Slf4j
@@ -30,12 +32,28 @@ public class SitesTask extends RecursiveAction {
 
         if (context.shouldStop("SitesTask")) return;
 
+        context.getPartitionManager().reservePartitions();
+        boolean staged = context.getSites().isStagedReindex();
         context.getSites().getSites().stream()
                 .map(Site::getUrl)
-                .forEach(url -> context.getDataManager().deleteSite(url));
+                .forEach(url -> {
+                    if (staged) {
+                        context.getDataManager().purgeInactiveGenerations(url);
+                    } else {
+                        context.getDataManager().findSite(url)
+                                .ifPresent(site -> context.getInvertedIndex().removeSite(site.getId()));
+                        context.getDataManager().purgeSite(url);
+                        context.getQueryResultCache().invalidate();
+                    }
+                });
         List<SiteTask> siteTasks = context.getSites().getSites().stream()
                 .map(site -> new SiteTask(site, context))
                 .toList();
-        invokeAll(siteTasks);
+        context.getPartitionManager().crawlStarted();
+        try {
+            invokeAll(siteTasks);
+        } finally {
+            context.getPartitionManager().crawlFinished();
+        }
     }
 }
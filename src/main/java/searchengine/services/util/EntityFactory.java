@@ -1,5 +1,7 @@
 package searchengine.services.util;
 
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import org.springframework.stereotype.Component;
 import searchengine.model.*;
 import java.time.LocalDateTime;
@@ -13,16 +15,23 @@ import java.time.LocalDateTime;
 @Component
 public class EntityFactory {
 
+    /**
+    * Maximum length of a stored page title
+    */
+    private static final int TITLE_MAX_LENGTH = 512;
+
     /**
     * Creates a new {@link SiteEntity} with the initial status {@link Status#INDEXING}.
     *
-    * @param name the site name
-    * @param url  the site URL
+    * @param name   the site name
+    * @param url    the site URL
+    * @param active whether the record is the live generation (false for a staging build)
     * @return the {@link SiteEntity} object
     */
-    public SiteEntity createSiteEntity(String name, String url){
+    public SiteEntity createSiteEntity(String name, String url, boolean active){
         SiteEntity site = new SiteEntity();
         site.setStatus(Status.INDEXING);
+        site.setActive(active);
         site.setName(name);
         site.setUrl(url);
         site.setStatusTime(LocalDateTime.now());
@@ -31,25 +40,40 @@ public class EntityFactory {
 
     /**
     * Creates a new {@link PageEntity}.
+    * <p>The HTML content is saved separately, see {@link searchengine.model.PageContentEntity}.
     *
     * @param siteEntity the site to which the page belongs
     * @param path       the page path
     * @param code       the HTTP status code
-    * @param content    the HTML content of the page
     * @return the {@link PageEntity} object
     */
-    public PageEntity createPageEntity(SiteEntity siteEntity,
-                                    String path, int code, String content){
+    public PageEntity createPageEntity(SiteEntity siteEntity, String path, int code){
         PageEntity page = new PageEntity();
         page.setSiteEntity(siteEntity);
         page.setPath(path);
+        page.setPathHash(PathHasher.hash(path));
         page.setCode(code);
-        page.setContent(content);
         return page;
     }
 
+    /**
+    * Creates a new {@link PageContentEntity} with the title and plain text extracted from the HTML.
+    * <p>The page ID is assigned when the page is saved.
+    *
+    * @param html the HTML content of the page
+    * @return the {@link PageContentEntity} object
+    */
+    public PageContentEntity createPageContentEntity(String html) {
+        Document document = Jsoup.parse(html);
+        String title = document.title().replaceAll("\\s+", " ").trim();
+        if (title.length() > TITLE_MAX_LENGTH) {
+            title = title.substring(0, TITLE_MAX_LENGTH);
+        }
+        return new PageContentEntity(0, html, title, document.text());
+    }
+
      /**
-     * Creates a new {@link LemmaEntity}.
+     * Creates a new {@link LemmaEntity} for a lemma found on one page.
      *
      * @param siteEntity the site to which the lemma belongs
      * @param lemma      the lemma text
@@ -61,6 +85,7 @@ public class EntityFactory {
         lemmaEntity.setSiteEntity(siteEntity);
         lemmaEntity.setLemma(lemma);
         lemmaEntity.setFrequency(count);
+        lemmaEntity.setDf(1);
         return lemmaEntity;
     }
 
@@ -69,11 +94,12 @@ public class EntityFactory {
      *
      * @param pageEntity  the page to which the index belongs
      * @param lemmaEntity the lemma associated with the index
-     * @param rank        the lemma weight on the page
+     * @param rank        the number of occurrences of the lemma on the page
      * @return the {@link IndexEntity} object
      */
      public IndexEntity createIndexEntity(PageEntity pageEntity, LemmaEntity lemmaEntity, float rank){
         IndexEntity indexEntity = new IndexEntity();
+        indexEntity.setSiteEntity(pageEntity.getSiteEntity());
         indexEntity.setPageEntity(pageEntity);
         indexEntity.setLemmaEntity(lemmaEntity);
         indexEntity.setRank(rank);
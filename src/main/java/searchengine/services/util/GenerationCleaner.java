@@ -0,0 +1,66 @@
+package searchengine.services.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.logs.LogTag;
+import searchengine.services.DataManager;
+import searchengine.services.search.InvertedIndex;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+ /**
+ * Background remover of site generations that are no longer served.
+ *
+ * <p>After a staged reindex swaps in a new generation, the previous one (or a failed
+ * staging generation) is purged here on a single background thread, so the
+ * indexing flow and searches do not wait for the bulk deletes.
+ */
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+
+public class GenerationCleaner {
+
+    private static final LogTag TAG = LogTag.GENERATION_CLEANER;
+
+    /**
+    * Database manager used for bulk purging
+    */
+    private final DataManager dataManager;
+
+    /**
+    * In-memory inverted index the generation is dropped from
+    */
+    private final InvertedIndex invertedIndex;
+
+    /**
+    * Single-threaded executor running purges one after another
+    */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+    * Schedules the purge of a site generation.
+    *
+    * @param siteId the ID of the generation to remove
+    */
+    public void discard(int siteId) {
+        log.info("{}  Generation with id = {} scheduled for removal", TAG, siteId);
+        invertedIndex.removeSite(siteId);
+        executor.submit(() -> {
+            if (!dataManager.purgeSite(siteId)) {
+                log.warn("{}  Generation with id = {} could not be removed", TAG, siteId);
+            }
+        });
+    }
+
+    /**
+    * Stops the executor when the application shuts down.
+    */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
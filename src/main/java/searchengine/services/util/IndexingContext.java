@@ -11,6 +11,8 @@ import searchengine.logs.LogTag;
 import searchengine.services.LemmaFrequencyService;
 import searchengine.services.LemmaProcessor;
 import searchengine.services.DataManager;
+import searchengine.services.search.InvertedIndex;
+import searchengine.services.search.QueryResultCache;
 
  /**
  * Context for page indexing processes.
@@ -26,6 +28,11 @@ import searchengine.services.DataManager;
  *   <li>{@link LemmaProcessor} — text processing and lemma generation</li>
  *   <li>{@link VisitedUrlStore} — storage of visited URLs</li>
  *   <li>{@link LemmaFrequencyService} — handling lemma frequencies and indexes</li>
+ *   <li>{@link GenerationCleaner} — background removal of replaced site generations</li>
+ *   <li>{@link SiteStatsRegistry} — in-memory statistics counters</li>
+ *   <li>{@link InvertedIndex} — in-memory inverted index used by search</li>
+ *   <li>{@link QueryResultCache} — cache of ranked search results, invalidated on index updates</li>
+ *   <li>{@link PartitionManager} — per-site partitions of the lemma and index tables</li>
  * </ul>
  */
 
@@ -74,6 +81,31 @@ public class IndexingContext {
      */
     private final @Lazy LemmaFrequencyService lemmaFrequencyService;
 
+     /**
+     * Background remover of replaced or failed site generations
+     */
+    private final GenerationCleaner generationCleaner;
+
+     /**
+     * In-memory per-site statistics counters
+     */
+    private final SiteStatsRegistry siteStatsRegistry;
+
+     /**
+     * In-memory inverted index used by search
+     */
+    private final InvertedIndex invertedIndex;
+
+     /**
+     * Cache of ranked search results
+     */
+    private final QueryResultCache queryResultCache;
+
+     /**
+     * Manager of the per-site table partitions
+     */
+    private final PartitionManager partitionManager;
+
      /**
      * Flag indicating a request to stop the indexing process
      */
@@ -93,17 +93,48 @@ public class LemmaFilter {
     * @return a list of "clean" words
     */
     private List<String> prepareText(String html) {
-        String text = filterTagHtml(html);
-
-        return Arrays.stream(text.split("\\s+"))
-                .map(word -> word.strip()
-                        .replaceAll("[^\\p{L}]", "")
-                        .toLowerCase())
+        return splitWords(html).stream()
+                .map(this::cleanWord)
                 .filter(word -> !word.isEmpty())
                 .filter(word -> !word.matches("[a-z]+"))
                 .toList();
     }
 
+    /**
+    * Splits the text of a page into raw whitespace-separated tokens.
+    * <p>The index of a token in this list is its word position on the page.
+    *
+    * @param html the original HTML or text
+    * @return tokens in text order
+    */
+    public List<String> splitWords(String html) {
+        String text = filterTagHtml(html);
+        return text.isEmpty() ? List.of() : Arrays.asList(text.split("\\s+"));
+    }
+
+    /**
+    * Removes non-letter characters from a token and converts it to lowercase.
+    *
+    * @param token a raw token
+    * @return the cleaned word, possibly empty
+    */
+    public String cleanWord(String token) {
+        return token.strip()
+                .replaceAll("[^\\p{L}]", "")
+                .toLowerCase();
+    }
+
+    /**
+    * Checks whether a cleaned word takes part in indexing:
+    * it is not empty, not Latin and not a functional part of speech.
+    *
+    * @param word a word returned by {@link #cleanWord(String)}
+    * @return true if the word is indexed
+    */
+    public boolean isIndexableWord(String word) {
+        return !word.isEmpty() && !word.matches("[a-z]+") && isNotServiceWord(word);
+    }
+
     /**
     * Normalizes a Russian word by converting it to lowercase and removing extraneous characters.
     *
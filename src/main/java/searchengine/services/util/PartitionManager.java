@@ -0,0 +1,227 @@
+package searchengine.services.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.logs.LogTag;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+ /**
+ * Maintains the per-site partitions of the {@code search_indexes} and {@code lemmas} tables.
+ *
+ * <p>Both tables are LIST-partitioned by {@code site_id} (see the Liquibase changelog).
+ * A partition named {@code p<siteId>} holds the lemmas and indexes of one site, so purging a site
+ * drops its partitions instead of deleting rows.
+ *
+ * <p>{@code ADD/DROP PARTITION} takes an exclusive metadata lock on the table and stalls every
+ * insert and query on it, so the DDL is kept out of running crawls: partitions for the next
+ * {@link #RESERVED_PARTITIONS} site IDs are created ahead of time, at startup and before a crawl
+ * begins, and a site purged while a crawl runs has its rows deleted and its empty partitions
+ * dropped after the crawl. All DDL is serialized.
+ *
+ * <p>If the tables are not partitioned (for example on a database where the migration was
+ * skipped), all operations report {@code false} and callers fall back to bulk deletes.
+ */
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+
+public class PartitionManager {
+
+    private static final LogTag TAG = LogTag.PARTITIONS;
+
+    /**
+    * Tables partitioned by site
+    */
+    private static final List<String> TABLES = List.of("search_indexes", "lemmas");
+
+    /**
+    * Number of site IDs beyond the current ones that get their partitions in advance
+    */
+    private static final int RESERVED_PARTITIONS = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+    * Cached result of the partitioning check
+    */
+    private volatile Boolean partitioned;
+
+    /**
+    * Site IDs whose partitions exist
+    */
+    private final Set<Integer> partitions = ConcurrentHashMap.newKeySet();
+
+    /**
+    * Site IDs whose partitions are to be dropped once no crawl is running
+    */
+    private final Set<Integer> pendingDrops = ConcurrentHashMap.newKeySet();
+
+    /**
+    * Number of crawls writing to the partitioned tables
+    */
+    private final AtomicInteger runningCrawls = new AtomicInteger();
+
+    /**
+    * Checks whether the site tables are partitioned.
+    *
+    * @return true if {@code search_indexes} is partitioned
+    */
+    public boolean isPartitioned() {
+        if (partitioned == null) {
+            try {
+                Integer count = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM information_schema.partitions " +
+                        "WHERE table_schema = DATABASE() AND table_name = 'search_indexes' " +
+                        "AND partition_name IS NOT NULL", Integer.class);
+                partitioned = count != null && count > 0;
+            } catch (Exception e) {
+                log.warn("{}  Failed to detect table partitioning: {}", TAG, e.getMessage());
+                return false;
+            }
+        }
+        return partitioned;
+    }
+
+    /**
+    * Reserves partitions when the application starts, before indexing can begin.
+    */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reservePartitions();
+    }
+
+    /**
+    * Creates the partitions of the next {@link #RESERVED_PARTITIONS} site IDs and drops the
+    * partitions left over from sites purged during a crawl.
+    * <p>Called while no crawl is running, so the DDL does not stall indexing.
+    */
+    public synchronized void reservePartitions() {
+        if (!isPartitioned()) return;
+        try {
+            partitions.clear();
+            partitions.addAll(jdbcTemplate.queryForList(
+                    "SELECT CAST(SUBSTRING(partition_name, 2) AS UNSIGNED) FROM information_schema.partitions " +
+                    "WHERE table_schema = DATABASE() AND table_name = 'search_indexes' " +
+                    "AND partition_name IS NOT NULL", Integer.class));
+            Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sites", Integer.class);
+            Long nextId = jdbcTemplate.queryForObject(
+                    "SELECT AUTO_INCREMENT FROM information_schema.tables " +
+                    "WHERE table_schema = DATABASE() AND table_name = 'sites'", Long.class);
+            int first = Math.max(maxId == null ? 0 : maxId + 1, nextId == null ? 1 : nextId.intValue());
+            List<Integer> missing = IntStream.range(first, first + RESERVED_PARTITIONS)
+                    .filter(id -> !partitions.contains(id) && !pendingDrops.contains(id))
+                    .boxed()
+                    .toList();
+            if (!missing.isEmpty()) addPartitions(missing);
+        } catch (Exception e) {
+            log.warn("{}  Failed to reserve partitions: {}", TAG, e.getMessage());
+        }
+        dropPendingPartitions();
+    }
+
+    /**
+    * Makes sure a newly created site has its partitions.
+    * <p>Reserved partitions are used as they are; only a site beyond the reserve needs DDL here.
+    *
+    * @param siteId the site ID
+    * @return true if the partitions exist
+    */
+    public boolean addSitePartitions(int siteId) {
+        if (!isPartitioned()) return false;
+        if (partitions.contains(siteId)) return true;
+        log.warn("{}  No reserved partition for site id={}, adding it now", TAG, siteId);
+        return addPartitions(List.of(siteId));
+    }
+
+    /**
+    * Drops the partitions of a site, removing its lemmas and indexes.
+    * <p>While a crawl is running nothing is dropped: the drop is deferred until the crawl ends and
+    * the caller deletes the rows instead.
+    *
+    * @param siteId the site ID
+    * @return true if the partitions were dropped
+    */
+    public synchronized boolean dropSitePartitions(int siteId) {
+        if (!isPartitioned()) return false;
+        if (runningCrawls.get() > 0) {
+            pendingDrops.add(siteId);
+            log.info("{}  Dropping partition {} deferred until indexing ends", TAG, partitionName(siteId));
+            return false;
+        }
+        boolean dropped = true;
+        for (String table : TABLES) {
+            dropped &= execute("ALTER TABLE " + table + " DROP PARTITION " + partitionName(siteId),
+                    "dropping", table, siteId);
+        }
+        if (dropped) partitions.remove(siteId);
+        return dropped;
+    }
+
+    /**
+    * Marks the start of a crawl; partition drops are deferred until every crawl has ended.
+    */
+    public void crawlStarted() {
+        runningCrawls.incrementAndGet();
+    }
+
+    /**
+    * Marks the end of a crawl and, when no crawl is left, drops the partitions of sites purged meanwhile.
+    */
+    public void crawlFinished() {
+        if (runningCrawls.decrementAndGet() == 0) {
+            dropPendingPartitions();
+        }
+    }
+
+    /**
+    * Drops the deferred partitions, whose rows have already been deleted.
+    */
+    private synchronized void dropPendingPartitions() {
+        if (runningCrawls.get() > 0) return;
+        for (Integer siteId : List.copyOf(pendingDrops)) {
+            pendingDrops.remove(siteId);
+            if (partitions.contains(siteId)) dropSitePartitions(siteId);
+        }
+    }
+
+    /**
+    * Adds the partitions of several sites with one statement per table.
+    */
+    private synchronized boolean addPartitions(List<Integer> siteIds) {
+        String list = siteIds.stream()
+                .map(id -> "PARTITION " + partitionName(id) + " VALUES IN (" + id + ")")
+                .collect(Collectors.joining(", "));
+        boolean added = true;
+        for (String table : TABLES) {
+            added &= execute("ALTER TABLE " + table + " ADD PARTITION (" + list + ")",
+                    "adding", table, siteIds.get(0));
+        }
+        if (added) partitions.addAll(siteIds);
+        return added;
+    }
+
+    private boolean execute(String ddl, String action, String table, int siteId) {
+        try {
+            jdbcTemplate.execute(ddl);
+            log.info("{}  Partition {} of {} done: {}", TAG, action, table, partitionName(siteId));
+            return true;
+        } catch (Exception e) {
+            log.warn("{}  Failed {} partition {} of {}: {}", TAG, action, partitionName(siteId), table, e.getMessage());
+            return false;
+        }
+    }
+
+    private String partitionName(int siteId) {
+        return "p" + siteId;
+    }
+}
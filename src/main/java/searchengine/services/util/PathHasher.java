@@ -0,0 +1,35 @@
+package searchengine.services.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+ /**
+ * Computes the fixed-width hash of a page path stored in {@code pages.path_hash}.
+ *
+ * <p>The hash is the first 8 bytes of the SHA-1 digest of the UTF-8 path read as a signed
+ * big-endian long, which matches the SQL expression used by the Liquibase migration:
+ * {@code CAST(CAST(CONV(LEFT(SHA1(path), 16), 16, 10) AS UNSIGNED) AS SIGNED)}.
+ */
+
+public final class PathHasher {
+
+    private PathHasher() {
+    }
+
+    /**
+    * Hashes a page path.
+    *
+    * @param path the page path
+    * @return the 64-bit hash of the path
+    */
+    public static long hash(String path) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(path.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest, 0, Long.BYTES).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package searchengine.services.util;
 
-import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import searchengine.dto.search.PageText;
 import searchengine.dto.search.SearchResult;
 import searchengine.logs.LogTag;
 import searchengine.model.PageEntity;
+import searchengine.services.search.SnippetEngine;
+import searchengine.services.search.SnippetMatcher;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
  /**
  * A class responsible for building search results.
@@ -15,132 +17,55 @@ import java.util.regex.Pattern;
  * highlights query keywords in snippets, and generates text previews.
  * <p>Main responsibilities:
  * <ul>
- *   <li>Building a paginated list of search results.</li>
- *   <li>Creating snippets with highlighted query terms.</li>
- *   <li>Extracting page titles and relative paths.</li>
+ *   <li>Building the search results for one page of ranked results, one at a time.</li>
+ *   <li>Creating snippets with highlighted query terms via {@link SnippetEngine}.</li>
+ *   <li>Taking page titles and computing relative paths.</li>
  * </ul>
  */
 
 @Slf4j
-@NoArgsConstructor
+@RequiredArgsConstructor
 
 public class SearchBuilder {
 
     private static final LogTag TAG = LogTag.SEARCH_BUILDER;
 
-     /**
-     * The number of characters taken on each side of a matched query term
-     * when generating a snippet.
-     */
-     private static final int SNIPPET_RADIUS = 100;
-
-     /**
-     * The maximum allowed length of the generated snippet.
-     */
-     private static final int SNIPPET_MAX_LENGTH = 250;
-
-     /**
-     * The average line length used as a heuristic when formatting snippet output.
-     */
-     private static final int AVG_LINE_LENGTH = 80;
-
-     /**
-     * The number of lines to include in the final formatted snippet.
-     */
-     private static final int SNIPPET_LINES = 3;
-
     /**
-    * Builds a list of {@link SearchResult} objects based on a map of pages with their relevance.
-    *
-    * @param rankedPages a map of pages and their relevance scores
-    * @param offset the pagination offset
-    * @param limit the maximum number of results
-    * @param query the search query used for highlighting terms in the snippet
-    * @return a list of {@link SearchResult} with populated snippets and titles
-    */
-    public List<SearchResult> build(Map<PageEntity, Float> rankedPages, int offset, int limit, String query) {
-        if (rankedPages.isEmpty()) return List.of();
-
-        List<String> queryWords = Arrays.stream(query.toLowerCase().split("\\s+"))
-                .filter(s -> s.length() > 1)
-                .toList();
-
-        return rankedPages.entrySet().stream()
-                .skip(offset)
-                .limit(limit)
-                .map(entry -> createSearchResult(entry.getKey(), entry.getValue(), queryWords))
-                .toList();
-    }
-    /**
-    * Removes HTML tags from the given text and normalizes excess whitespace.
-    *
-    * @param content the page's HTML content
-    * @return plain text with tags removed and excess whitespace collapsed/trimmed
+    * Engine building the snippets
     */
-    private String cleanHtmlTags(String content) {
-        return content.replaceAll("<[^>]*>", " ").replaceAll("\\s+", " ").trim();
-    }
+    private final SnippetEngine snippetEngine;
 
     /**
-    * Builds a text snippet for display in search results.
-    * <p>Highlights query keywords in bold (<b>) and limits the snippet length.
+    * Builds a {@link SearchResult} for each ranked page and hands it over as soon as its snippet is ready.
     *
-    * @param text the page text without HTML
-    * @param queryWords the list of words from the search query
-    * @return the generated snippet for display
+    * @param rankedPages the pages of the requested result page with their relevance, in display order
+    * @param texts the title and plain text of those pages keyed by page ID
+    * @param wordWindows the densest word window of the query lemmas keyed by page ID, where known
+    * @param matcher the matcher of the query used for highlighting terms in the snippet
+    * @param sink receives the results with populated snippets and titles, in display order
     */
-    private String buildSnippet(String text, List<String> queryWords) {
-        if (text.isBlank()) return "";
-
-        String snippet = getString(text, queryWords);
-
-        if (!queryWords.isEmpty()) {
-            Pattern pattern = Pattern.compile("\\b(" + String.join("|", queryWords) + ")\\b", Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(snippet);
-            snippet = matcher.replaceAll("<b>$1</b>");
+    public void build(List<Map.Entry<PageEntity, Float>> rankedPages, Map<Integer, PageText> texts,
+                      Map<Integer, int[]> wordWindows, SnippetMatcher matcher, Consumer<SearchResult> sink) {
+        for (Map.Entry<PageEntity, Float> entry : rankedPages) {
+            int pageId = entry.getKey().getId();
+            sink.accept(createSearchResult(entry.getKey(), entry.getValue(),
+                    texts.get(pageId), wordWindows.get(pageId), matcher));
         }
-
-        int maxLen = AVG_LINE_LENGTH * SNIPPET_LINES;
-        snippet = snippet.length() > maxLen ? snippet.substring(0, maxLen) + "..." : snippet;
-        return snippet;
-    }
-
-     /**
-     * Finds a text fragment around the first occurrence of any query word.
-     * <p>Used internally by {@link #buildSnippet(String, List)}.
-     *
-     * @param text the page text
-     * @param queryWords the query words
-     * @return a segment of text containing the match, or the beginning of the text if no match is found
-     */
-     private static String getString(String text, List<String> queryWords) {
-        String lowerText = text.toLowerCase();
-        int matchIndex = -1;
-
-        for (String word : queryWords) {
-            int idx = lowerText.indexOf(word);
-            if (idx >= 0) {
-                matchIndex = idx;
-                break;
-            }
-        }
-        int start = matchIndex == -1 ? 0 : Math.max(0, matchIndex - SNIPPET_RADIUS);
-        int end = matchIndex == -1
-                ? Math.min(SNIPPET_MAX_LENGTH, text.length())
-                : Math.min(text.length(), matchIndex + SNIPPET_RADIUS);
-        return text.substring(start, end);
     }
 
      /**
      * Creates a {@link SearchResult} object for a single page.
-     * <p>Extracts the title, relative path, snippet, and other related data.
+     * <p>Takes the title, relative path, snippet, and other related data.
      *
      * @param page the page
      * @param relevance the page's relevance score
-     * @param queryWords the list of query words
+     * @param pageText the page's title and plain text (may be null)
+     * @param wordWindow the densest word window of the query lemmas (may be null)
+     * @param matcher the matcher of the query
      * @return a {@link SearchResult} representing this page
      */
-     private SearchResult createSearchResult(PageEntity page, float relevance, List<String> queryWords) {
+     private SearchResult createSearchResult(PageEntity page, float relevance, PageText pageText,
+                                             int[] wordWindow, SnippetMatcher matcher) {
         String siteUrl = Optional.ofNullable(page.getSiteEntity())
                 .map(s -> s.getUrl())
                 .orElse("");
@@ -149,31 +74,16 @@ public class SearchBuilder {
                 .orElse("(no name)");
         String pagePath = Optional.ofNullable(page.getPath()).orElse("");
         String uri = pagePath.startsWith("http") ? extractRelativePath(pagePath, siteUrl) : pagePath;
-        String content = Optional.ofNullable(page.getContent()).orElse("");
-        String title = extractTitleFromHtml(content);
-        String text = cleanHtmlTags(content);
-        String snippet = buildSnippet(text, queryWords);
+        String title = Optional.ofNullable(pageText)
+                .map(PageText::getTitle)
+                .filter(t -> !t.isBlank())
+                .orElse("(no title)");
+        String text = Optional.ofNullable(pageText).map(PageText::getText).orElse("");
+        String snippet = snippetEngine.snippet(text, matcher, wordWindow);
 
         return new SearchResult(siteUrl, siteName, uri, title, snippet, relevance);
     }
 
-     /**
-     * Extracts the page title from its HTML content.
-     *
-     * @param html the page's HTML content
-     * @return the page title, or "(no title)" if not found
-     */
-     private String extractTitleFromHtml(String html) {
-         if (html == null || html.isBlank()) return "(no title)";
-        Pattern pattern = Pattern.compile("<title>(.*?)</title>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(html);
-        if (matcher.find()) {
-            String title = matcher.group(1).replaceAll("\\s+", " ").trim();
-            return title.isEmpty() ? "(no title)" : title;
-        }
-        return "(no title)";
-    }
-
      /**
      * Computes the relative path of a page with respect to the site's URL.
      *
@@ -194,4 +104,3 @@ public class SearchBuilder {
         }
     }
 }
-
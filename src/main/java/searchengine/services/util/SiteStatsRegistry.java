@@ -0,0 +1,316 @@
+package searchengine.services.util;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.dto.statistics.SiteCounts;
+import searchengine.logs.LogTag;
+import searchengine.model.SiteEntity;
+import searchengine.model.SiteStatsEntity;
+import searchengine.model.Status;
+import searchengine.repositories.SiteStatsRepository;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+ /**
+ * In-memory registry of per-site indexing counters.
+ *
+ * <p>Counters (pages, lemmas, index rows, HTML bytes) are updated by the indexing pipeline as
+ * work is committed and flushed to the {@code site_stats} table in the background, so the
+ * statistics endpoint can answer from memory without counting rows in the database.
+ * The counters are recomputed from the indexed rows at startup, so the table is never read back.
+ * Site metadata (name, status, error) is tracked alongside the counters.
+ *
+ * <p>Every change increments {@link #getVersion()}, which lets readers cache snapshots.
+ */
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+
+public class SiteStatsRegistry {
+
+    private static final LogTag TAG = LogTag.SITE_STATS;
+
+    /**
+    * Interval between background flushes of changed counters to the database
+    */
+    private static final long FLUSH_INTERVAL_SECONDS = 10;
+
+    private final SiteStatsRepository siteStatsRepository;
+
+    /**
+    * Counters keyed by site ID
+    */
+    private final Map<Integer, SiteCounters> counters = new ConcurrentHashMap<>();
+
+    /**
+    * Version incremented on every change
+    */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+    * Whether the registry has been filled from the database
+    */
+    @Getter
+    private volatile boolean loaded = false;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    private void init() {
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+    * Flushes pending changes and stops the background flusher on shutdown.
+    */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+    * Fills the registry with the given sites.
+    * <p>Counters are seeded from the supplied aggregate counts on every start and written back to
+    * {@code site_stats}, which is only a cache of the registry: rows left behind by an unclean shutdown
+    * never survive a restart. The aggregate already includes every row committed before it was taken,
+    * so increments recorded before the registry was loaded are replaced rather than added.
+    *
+    * @param sites all site generations
+    * @param seed  aggregate counts keyed by site ID; sites missing from it have no rows
+    */
+    public synchronized void load(List<SiteEntity> sites, Map<Integer, SiteCounts> seed) {
+        if (loaded) return;
+        for (SiteEntity site : sites) {
+            SiteCounters c = countersOf(site.getId());
+            c.describe(site);
+            SiteCounts counts = seed.get(site.getId());
+            if (counts != null) {
+                c.reset(counts.getPages(), counts.getLemmas(), counts.getIndexes(), counts.getContentBytes());
+            } else {
+                c.reset(0, 0, 0, 0);
+            }
+            c.dirty = true;
+        }
+        loaded = true;
+        version.incrementAndGet();
+        log.info("{}  Statistics counters loaded for {} sites", TAG, sites.size());
+    }
+
+    /**
+    * Records the current state of a saved site.
+    *
+    * @param site the saved site
+    */
+    public void siteSaved(SiteEntity site) {
+        countersOf(site.getId()).describe(site);
+        version.incrementAndGet();
+    }
+
+    /**
+    * Records that a generation became live; other generations of the same URL become inactive.
+    *
+    * @param site the activated generation
+    */
+    public void generationActivated(SiteEntity site) {
+        counters.values().stream()
+                .filter(c -> Objects.equals(c.url, site.getUrl()) && c.siteId != site.getId())
+                .forEach(c -> c.active = false);
+        siteSaved(site);
+    }
+
+    /**
+    * Forgets a removed site and deletes its stored counters.
+    *
+    * @param siteId the site ID
+    */
+    public void siteRemoved(int siteId) {
+        if (counters.remove(siteId) != null) {
+            version.incrementAndGet();
+        }
+        try {
+            siteStatsRepository.deleteById(siteId);
+        } catch (Exception e) {
+            log.debug("{}  No stored counters to delete for site id={}", TAG, siteId);
+        }
+    }
+
+    /**
+    * Records a saved page.
+    *
+    * @param siteId the site ID
+    * @param bytes  size of the page HTML in bytes
+    */
+    public void pageAdded(int siteId, long bytes) {
+        SiteCounters c = countersOf(siteId);
+        c.pages.increment();
+        c.bytes.add(bytes);
+        c.touch();
+        version.incrementAndGet();
+    }
+
+    /**
+    * Records a removed page.
+    *
+    * @param siteId the site ID
+    * @param bytes  size of the page HTML in bytes
+    */
+    public void pageRemoved(int siteId, long bytes) {
+        SiteCounters c = countersOf(siteId);
+        c.pages.decrement();
+        c.bytes.add(-bytes);
+        c.touch();
+        version.incrementAndGet();
+    }
+
+    /**
+    * Records a change in the number of lemmas and index rows of a site.
+    *
+    * @param siteId       the site ID
+    * @param lemmasDelta  number of lemmas added (negative when removed)
+    * @param indexesDelta number of index rows added (negative when removed)
+    */
+    public void lemmasChanged(int siteId, int lemmasDelta, int indexesDelta) {
+        if (lemmasDelta == 0 && indexesDelta == 0) return;
+        SiteCounters c = countersOf(siteId);
+        c.lemmas.add(lemmasDelta);
+        c.indexes.add(indexesDelta);
+        c.touch();
+        version.incrementAndGet();
+    }
+
+    /**
+    * Returns the number of pages of a site without counting rows in the database.
+    *
+    * @param siteId the site ID
+    * @return the page count, or -1 if the registry is not loaded or does not know the site
+    */
+    public long getPageCount(int siteId) {
+        SiteCounters c = loaded ? counters.get(siteId) : null;
+        return c == null ? -1 : c.getPages();
+    }
+
+    /**
+    * Returns the version of the registry, incremented on every change.
+    *
+    * @return the current version
+    */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+    * Returns the counters of the live site generations.
+    *
+    * @return counters of active sites
+    */
+    public List<SiteCounters> getActiveSites() {
+        return counters.values().stream()
+                .filter(c -> c.active && c.url != null)
+                .sorted(Comparator.comparingInt(SiteCounters::getSiteId))
+                .toList();
+    }
+
+    /**
+    * Writes changed counters to the {@code site_stats} table.
+    * <p>Nothing is written before the registry is loaded, since the counters are not seeded until then.
+    */
+    public void flush() {
+        if (!loaded) return;
+        try {
+            List<SiteStatsEntity> rows = new ArrayList<>();
+            for (SiteCounters c : counters.values()) {
+                if (!c.dirty) continue;
+                c.dirty = false;
+                rows.add(new SiteStatsEntity(c.siteId, c.getPages(), c.getLemmas(), c.getIndexes(),
+                        c.getContentBytes(), c.updatedAt));
+            }
+            if (!rows.isEmpty()) {
+                siteStatsRepository.saveAll(rows);
+                log.debug("{}  Flushed counters of {} sites", TAG, rows.size());
+            }
+        } catch (Exception e) {
+            log.error("{}  Error flushing statistics counters", TAG, e);
+        }
+    }
+
+    private SiteCounters countersOf(int siteId) {
+        return counters.computeIfAbsent(siteId, SiteCounters::new);
+    }
+
+     /**
+     * Counters and metadata of one site generation.
+     */
+     public static class SiteCounters {
+
+        @Getter private final int siteId;
+        @Getter private volatile String name;
+        @Getter private volatile String url;
+        @Getter private volatile Status status;
+        @Getter private volatile LocalDateTime statusTime;
+        @Getter private volatile String lastError;
+        @Getter private volatile boolean active;
+        @Getter private volatile LocalDateTime updatedAt = LocalDateTime.now();
+        private volatile boolean dirty;
+        private final LongAdder pages = new LongAdder();
+        private final LongAdder lemmas = new LongAdder();
+        private final LongAdder indexes = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        SiteCounters(int siteId) {
+            this.siteId = siteId;
+        }
+
+        public long getPages() {
+            return pages.sum();
+        }
+
+        public long getLemmas() {
+            return lemmas.sum();
+        }
+
+        public long getIndexes() {
+            return indexes.sum();
+        }
+
+        public long getContentBytes() {
+            return bytes.sum();
+        }
+
+        private void describe(SiteEntity site) {
+            name = site.getName();
+            url = site.getUrl();
+            status = site.getStatus();
+            statusTime = site.getStatusTime();
+            lastError = site.getLastError();
+            active = site.isActive();
+        }
+
+        private void reset(long pageCount, long lemmaCount, long indexCount, long byteCount) {
+            pages.reset();
+            pages.add(pageCount);
+            lemmas.reset();
+            lemmas.add(lemmaCount);
+            indexes.reset();
+            indexes.add(indexCount);
+            bytes.reset();
+            bytes.add(byteCount);
+        }
+
+        private void touch() {
+            updatedAt = LocalDateTime.now();
+            dirty = true;
+        }
+    }
+}